@@ -0,0 +1,97 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import me.ryanhamshire.GriefPrevention.Claim;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the main thread portions of claim owner collection and claim lookup.
+ *
+ * <p>{@link #refreshPlayers} measures the claim scan performed by {@code EvaluationManager#refreshPlayers}
+ * and {@link #evaluateClaims} the claim lookup performed by {@code EvaluationManager#evaluateClaims}.
+ * {@link #evaluateClaimsFullScan} is the full scan used before claims were indexed by owner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ClaimIndexBenchmark
+{
+
+    @Param({ "10000", "100000", "1000000" })
+    public int claimCount;
+
+    private List<Claim> claims;
+    private UUID[] owners;
+    private ClaimOwnerIndex index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        claims = StandIns.claims(claimCount, 42L);
+        owners = StandIns.owners(Math.max(1, claimCount / 4), 42L);
+        index = new ClaimOwnerIndex();
+        index.rebuild(claims);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public @NotNull Set<UUID> refreshPlayers()
+    {
+        return new ClaimOwnerIndex().rebuild(claims);
+    }
+
+    @Benchmark
+    public void evaluateClaims(@NotNull Blackhole blackhole)
+    {
+        UUID owner = nextOwner();
+        for (Claim claim : index.getClaims(owner))
+        {
+            blackhole.consume(StandIns.CONFIG.getProtectionDuration(claim));
+        }
+    }
+
+    @Benchmark
+    public void evaluateClaimsFullScan(@NotNull Blackhole blackhole)
+    {
+        UUID owner = nextOwner();
+        List<Claim> owned = new ArrayList<>();
+        for (Claim claim : claims)
+        {
+            if (claim.parent == null && owner.equals(claim.ownerID)) owned.add(claim);
+        }
+        for (Claim claim : owned)
+        {
+            blackhole.consume(StandIns.CONFIG.getProtectionDuration(claim));
+        }
+    }
+
+    private @NotNull UUID nextOwner()
+    {
+        UUID owner = owners[next];
+        next = (next + 1) % owners.length;
+        return owner;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import me.ryanhamshire.GriefPrevention.Claim;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link com.github.gpaddons.gpclaimexpiration.config.Configuration} lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConfigurationBenchmark
+{
+
+    @Param({ "10000", "100000", "1000000" })
+    public int claimCount;
+
+    private List<Claim> claims;
+    private OfflinePlayer[] players;
+    private int nextClaim;
+    private int nextPlayer;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        claims = StandIns.claims(claimCount, 42L);
+        UUID[] owners = StandIns.owners(Math.min(10_000, Math.max(1, claimCount / 4)), 42L);
+        players = new OfflinePlayer[owners.length];
+        for (int i = 0; i < owners.length; ++i)
+        {
+            players[i] = StandIns.offlinePlayer(owners[i]);
+        }
+    }
+
+    @Benchmark
+    public long getProtectionDuration()
+    {
+        Claim claim = claims.get(nextClaim);
+        nextClaim = (nextClaim + 1) % claims.size();
+        return StandIns.CONFIG.getProtectionDuration(claim);
+    }
+
+    @Benchmark
+    public long getShortestClaimExpiration()
+    {
+        return StandIns.CONFIG.getShortestClaimExpiration();
+    }
+
+    @Benchmark
+    public boolean isExemptCached()
+    {
+        return StandIns.CONFIG.isExempt(nextPlayer(), "world");
+    }
+
+    @Benchmark
+    public boolean isExemptUncached()
+    {
+        StandIns.CONFIG.clearExemptions();
+        return StandIns.CONFIG.isExempt(nextPlayer(), "world");
+    }
+
+    private @NotNull OfflinePlayer nextPlayer()
+    {
+        OfflinePlayer player = players[nextPlayer];
+        nextPlayer = (nextPlayer + 1) % players.length;
+        return player;
+    }
+
+}
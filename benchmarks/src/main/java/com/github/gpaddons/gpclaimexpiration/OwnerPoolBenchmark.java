@@ -0,0 +1,81 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for filling and draining the owner pool over a full cycle.
+ *
+ * <p>{@link #cycleBoxed} is the equivalent cycle over a list of UUID objects for comparison. Run with
+ * {@code -prof gc} to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OwnerPoolBenchmark
+{
+
+    @Param({ "10000", "100000", "1000000" })
+    public int ownerCount;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private List<UUID> owners;
+    private OwnerPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        owners = List.of(StandIns.owners(ownerCount, 42L));
+        pool = new OwnerPool(new Random(42L), direct);
+    }
+
+    @Benchmark
+    public void cycle(@NotNull Blackhole blackhole)
+    {
+        pool.refill(owners);
+        UUID owner;
+        while ((owner = pool.next(true)) != null)
+        {
+            blackhole.consume(owner);
+        }
+    }
+
+    @Benchmark
+    public void cycleBoxed(@NotNull Blackhole blackhole)
+    {
+        Random random = new Random(42L);
+        List<UUID> list = new ArrayList<>(owners);
+        while (!list.isEmpty())
+        {
+            int index = random.nextInt(list.size());
+            int last = list.size() - 1;
+            blackhole.consume(list.get(index));
+            list.set(index, list.get(last));
+            list.remove(last);
+        }
+    }
+
+}
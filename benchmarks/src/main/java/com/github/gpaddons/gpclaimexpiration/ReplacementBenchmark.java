@@ -0,0 +1,123 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import com.github.gpaddons.util.lang.MessageReplacement;
+import com.github.gpaddons.util.lang.MessageTemplate;
+import com.github.gpaddons.util.lang.replacement.LocationReplacement;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link MessageReplacement} chains compared to {@link MessageTemplate} rendering.
+ *
+ * <p>Owner replacement resolves names through the plugin's translations, which require a running
+ * server, so owner variables are provided by an equivalent stand-in replacement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplacementBenchmark
+{
+
+    private static final String COMMAND = "adminclaimauction $world $locX $locZ $locXMax $locZMax $area $ownerName";
+
+    private MessageTemplate template;
+    private MessageReplacement[] replacements;
+    private StringBuilder builder;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        World world = StandIns.WORLDS.get(0);
+        String ownerId = new UUID(42L, 42L).toString();
+        MessageReplacement owner = new MessageReplacement()
+        {
+            @Override
+            public @NotNull String replace(@NotNull String value)
+            {
+                return value.replace("$ownerId", ownerId).replace("$ownerName", "Owner");
+            }
+
+            @Override
+            public boolean appendValue(@NotNull String variable, @NotNull StringBuilder builder)
+            {
+                if (variable.equals("ownerId")) builder.append(ownerId);
+                else if (variable.equals("ownerName")) builder.append("Owner");
+                else return false;
+
+                return true;
+            }
+        };
+        MessageReplacement area = new MessageReplacement()
+        {
+            @Override
+            public @NotNull String replace(@NotNull String value)
+            {
+                return value.replace("$claimId", "1").replace("$area", "10000")
+                        .replace("$width", "100").replace("$depth", "100");
+            }
+
+            @Override
+            public boolean appendValue(@NotNull String variable, @NotNull StringBuilder builder)
+            {
+                switch (variable)
+                {
+                    case "claimId" -> builder.append(1);
+                    case "area" -> builder.append(10_000);
+                    case "width", "depth" -> builder.append(100);
+                    default ->
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+
+        replacements = new MessageReplacement[] {
+                owner,
+                new LocationReplacement("Max", new Location(world, 149, 255, 149)),
+                new LocationReplacement(new Location(world, 50, 0, 50)),
+                area
+        };
+        template = MessageTemplate.compile(COMMAND);
+        builder = new StringBuilder();
+    }
+
+    @Benchmark
+    public @NotNull String replacementChain()
+    {
+        String value = COMMAND;
+        for (MessageReplacement replacement : replacements)
+        {
+            value = replacement.replace(value);
+        }
+        return value;
+    }
+
+    @Benchmark
+    public @NotNull String templateRender()
+    {
+        builder.setLength(0);
+        template.render(builder, replacements);
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,233 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import com.github.gpaddons.gpclaimexpiration.config.Configuration;
+import com.github.jikoo.planarwrappers.service.VaultPermission;
+import me.ryanhamshire.GriefPrevention.Claim;
+import me.ryanhamshire.GriefPrevention.DataStore;
+import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import me.ryanhamshire.GriefPrevention.PlayerData;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Stand-ins for the server, GriefPrevention, and the plugin, plus synthetic claim datasets.
+ *
+ * <p>Stand-ins are created once per JVM because {@link Bukkit#setServer(Server)} may only be called once.
+ */
+final class StandIns
+{
+
+    static final @NotNull List<World> WORLDS;
+    static final @NotNull Server SERVER;
+    static final @NotNull GPClaimExpiration PLUGIN;
+    static final @NotNull Configuration CONFIG;
+
+    private static final Objenesis OBJENESIS = new ObjenesisStd(true);
+
+    static
+    {
+        List<World> worlds = new ArrayList<>();
+        for (String name : List.of("world", "world_nether", "high_turnover_world"))
+        {
+            World world = mock(World.class, withSettings().stubOnly());
+            when(world.getName()).thenReturn(name);
+            when(world.getUID()).thenReturn(UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)));
+            worlds.add(world);
+        }
+        WORLDS = List.copyOf(worlds);
+
+        SERVER = mock(Server.class, withSettings().stubOnly());
+        when(SERVER.getLogger()).thenReturn(Logger.getLogger("Server"));
+        when(SERVER.getWorlds()).thenReturn(WORLDS);
+        for (World world : WORLDS)
+        {
+            when(SERVER.getWorld(world.getUID())).thenReturn(world);
+            when(SERVER.getWorld(world.getName())).thenReturn(world);
+        }
+        Bukkit.setServer(SERVER);
+
+        YamlConfiguration config = new YamlConfiguration();
+        try (InputStream resource = StandIns.class.getResourceAsStream("/config.yml"))
+        {
+            if (resource == null) throw new IllegalStateException("Missing config.yml");
+            config.load(new InputStreamReader(resource, StandardCharsets.UTF_8));
+        }
+        catch (Exception e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+
+        // Set durations in the list form parsed by TreeMapSetting.
+        // The high turnover world mirrors the sample override.
+        setDurations(config, "expiration.days_per_area", -1, 90, 60, 30);
+        setDurations(config, "overrides.high_turnover_world.expiration.days_per_area", -1, 7, 2, 2);
+
+        VaultPermission permission = mock(VaultPermission.class, withSettings().stubOnly());
+        when(permission.hasPermission(any(OfflinePlayer.class), anyString(), anyString())).thenReturn(false);
+
+        PLUGIN = mock(GPClaimExpiration.class, withSettings().stubOnly());
+        when(PLUGIN.getConfig()).thenReturn(config);
+        when(PLUGIN.getServer()).thenReturn(SERVER);
+        when(PLUGIN.getLogger()).thenReturn(Logger.getLogger("GPClaimExpiration"));
+        when(PLUGIN.getPermissionBridge()).thenReturn(permission);
+
+        CONFIG = new Configuration(PLUGIN);
+        when(PLUGIN.config()).thenReturn(CONFIG);
+
+        DataStore dataStore = mock(DataStore.class, withSettings().stubOnly());
+        when(dataStore.getPlayerData(any(UUID.class))).thenAnswer(invocation -> {
+            PlayerData playerData = new PlayerData();
+            playerData.setAccruedClaimBlocks(100);
+            playerData.setBonusClaimBlocks(0);
+            return playerData;
+        });
+
+        GriefPrevention griefPrevention = mock(GriefPrevention.class, withSettings().stubOnly());
+        griefPrevention.dataStore = dataStore;
+        GriefPrevention.instance = griefPrevention;
+    }
+
+    private static void setDurations(@NotNull YamlConfiguration config, @NotNull String path, int... days)
+    {
+        config.set(path, null);
+        int[] areas = { 250_000, 10_000, 100, 0 };
+        for (int i = 0; i < areas.length; ++i)
+        {
+            config.set(path + '.' + areas[i], List.of(String.valueOf(days[i])));
+        }
+    }
+
+    /**
+     * Generate a synthetic dataset of claims.
+     *
+     * <p>Each owner has an average of four top level claims. Roughly one in ten claims is a subdivision.
+     *
+     * @param claimCount the number of claims
+     * @param seed the random seed
+     * @return the claims
+     */
+    static @NotNull List<Claim> claims(int claimCount, long seed)
+    {
+        Random random = new Random(seed);
+        UUID[] owners = owners(Math.max(1, claimCount / 4), seed);
+        List<Claim> claims = new ArrayList<>(claimCount);
+
+        Claim lastTopLevel = null;
+        for (int i = 0; i < claimCount; ++i)
+        {
+            World world = WORLDS.get(random.nextInt(WORLDS.size()));
+            int x = random.nextInt(1_000_000) - 500_000;
+            int z = random.nextInt(1_000_000) - 500_000;
+            // Bias towards small claims like a real server.
+            int width = 5 + (int) (Math.pow(random.nextDouble(), 3) * 600);
+            int depth = 5 + (int) (Math.pow(random.nextDouble(), 3) * 600);
+
+            Claim parent = lastTopLevel != null && random.nextInt(10) == 0 ? lastTopLevel : null;
+            UUID owner = parent != null ? parent.ownerID : owners[random.nextInt(owners.length)];
+
+            Claim claim = claim(new Location(world, x, 0, z), new Location(world, x + width - 1, 255, z + depth - 1),
+                    owner, parent, i);
+            claims.add(claim);
+
+            if (parent == null) lastTopLevel = claim;
+        }
+
+        return claims;
+    }
+
+    /**
+     * Generate deterministic owner UUIDs.
+     *
+     * @param ownerCount the number of owners
+     * @param seed the random seed
+     * @return the owners
+     */
+    static @NotNull UUID @NotNull [] owners(int ownerCount, long seed)
+    {
+        Random random = new Random(seed);
+        UUID[] owners = new UUID[ownerCount];
+        for (int i = 0; i < ownerCount; ++i)
+        {
+            owners[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        return owners;
+    }
+
+    /**
+     * Create an offline player stand-in.
+     *
+     * @param uuid the UUID of the player
+     * @return the player
+     */
+    static @NotNull OfflinePlayer offlinePlayer(@NotNull UUID uuid)
+    {
+        OfflinePlayer player = mock(OfflinePlayer.class, withSettings().stubOnly());
+        when(player.getUniqueId()).thenReturn(uuid);
+        when(player.isOnline()).thenReturn(false);
+        when(player.getLastPlayed()).thenReturn(0L);
+        return player;
+    }
+
+    /**
+     * Create a claim without invoking GriefPrevention's constructors, which vary between versions
+     * and allocate permission maps that are irrelevant to expiration.
+     */
+    private static @NotNull Claim claim(
+            @NotNull Location lesser,
+            @NotNull Location greater,
+            @NotNull UUID owner,
+            @Nullable Claim parent,
+            long id)
+    {
+        Claim claim = OBJENESIS.newInstance(Claim.class);
+        set(claim, "lesserBoundaryCorner", lesser);
+        set(claim, "greaterBoundaryCorner", greater);
+        set(claim, "id", id);
+        set(claim, "children", new ArrayList<Claim>());
+        claim.ownerID = owner;
+        claim.parent = parent;
+        claim.inDataStore = true;
+        return claim;
+    }
+
+    private static void set(@NotNull Claim claim, @NotNull String fieldName, @Nullable Object value)
+    {
+        try
+        {
+            Field field = Claim.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(claim, value);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Unable to set Claim." + fieldName, e);
+        }
+    }
+
+    private StandIns() {}
+
+}
@@ -0,0 +1,312 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import me.ryanhamshire.GriefPrevention.Claim;
+import me.ryanhamshire.GriefPrevention.events.ClaimCreatedEvent;
+import me.ryanhamshire.GriefPrevention.events.ClaimDeletedEvent;
+import me.ryanhamshire.GriefPrevention.events.ClaimModifiedEvent;
+import me.ryanhamshire.GriefPrevention.events.ClaimResizeEvent;
+import me.ryanhamshire.GriefPrevention.events.ClaimTransferEvent;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of top level claims by owner.
+ *
+ * <p>The index is built by a full claim scan and kept up to date by GriefPrevention's claim events
+ * afterwards. Scans are only repeated occasionally to reconcile changes made without events. All
+ * access must be performed on the main thread, with the exception of {@link #getOwners()} and
+ * {@link #getWorlds(UUID)}.
+ */
+class ClaimOwnerIndex
+{
+
+    private final Map<UUID, Set<Claim>> ownerClaims = new HashMap<>();
+    private final Map<UUID, Set<String>> ownerWorlds = new ConcurrentHashMap<>();
+    private @Nullable OwnerListener listener;
+
+    /**
+     * Register listeners keeping the index up to date.
+     *
+     * @param plugin the owning plugin
+     */
+    void register(@NotNull Plugin plugin)
+    {
+        plugin.getServer().getPluginManager().registerEvents(new CommonEvents(), plugin);
+
+        try
+        {
+            Class.forName("me.ryanhamshire.GriefPrevention.events.ClaimResizeEvent");
+            plugin.getServer().getPluginManager().registerEvents(new ModernEvents(), plugin);
+        }
+        catch (ClassNotFoundException e)
+        {
+            plugin.getServer().getPluginManager().registerEvents(new LegacyEvents(), plugin);
+        }
+    }
+
+    /**
+     * Rebuild the index from the given claims.
+     *
+     * @param claims all claims
+     * @return the owners of indexed claims
+     */
+    @NotNull Set<UUID> rebuild(@NotNull Collection<Claim> claims)
+    {
+        // Don't notify for a full rebuild, callers use the returned owners instead.
+        OwnerListener current = listener;
+        listener = null;
+        ownerClaims.clear();
+
+        for (Claim claim : claims)
+        {
+            add(claim);
+        }
+
+        listener = current;
+        // Previous worlds are kept during the rebuild so readers never see too few. Drop stale worlds now.
+        ownerWorlds.keySet().retainAll(ownerClaims.keySet());
+        ownerClaims.forEach((owner, claims) -> ownerWorlds.put(owner, getWorlds(claims)));
+
+        return new LinkedHashSet<>(ownerClaims.keySet());
+    }
+
+    /**
+     * Get a view of the owners of indexed claims. Unlike the rest of the index, this may be read
+     * from any thread.
+     *
+     * @return an unmodifiable view of the owners
+     */
+    @NotNull Set<UUID> getOwners()
+    {
+        return Collections.unmodifiableSet(ownerWorlds.keySet());
+    }
+
+    /**
+     * Get the worlds an owner has indexed claims in. Unlike the rest of the index, this may be read
+     * from any thread.
+     *
+     * @param owner the UUID of the owner
+     * @return the names of the worlds or an empty set if any claim's world is not loaded
+     */
+    @NotNull Set<String> getWorlds(@NotNull UUID owner)
+    {
+        return ownerWorlds.getOrDefault(owner, Set.of());
+    }
+
+    /**
+     * Set the listener notified when a player gains their first or loses their last indexed claim.
+     *
+     * @param listener the listener or null to remove
+     */
+    void setOwnerListener(@Nullable OwnerListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Get the top level claims currently owned by a player.
+     *
+     * @param owner the UUID of the owner
+     * @return the owner's claims
+     */
+    @NotNull List<Claim> getClaims(@NotNull UUID owner)
+    {
+        Set<Claim> claims = ownerClaims.get(owner);
+
+        if (claims == null) return List.of();
+
+        List<Claim> result = new ArrayList<>(claims.size());
+        for (Claim claim : claims)
+        {
+            // Guard against changes made without an event.
+            if (claim.inDataStore && claim.parent == null && owner.equals(claim.ownerID)) result.add(claim);
+        }
+
+        return result;
+    }
+
+    private void add(@NotNull Claim claim)
+    {
+        add(claim, claim.ownerID);
+    }
+
+    private void add(@NotNull Claim claim, @Nullable UUID owner)
+    {
+        // Always skip child claims - will be revisited by expiration processing.
+        // Administrative claims have no owner to expire.
+        if (claim.parent != null || owner == null) return;
+
+        Set<Claim> claims = ownerClaims.get(owner);
+
+        if (claims == null)
+        {
+            claims = new LinkedHashSet<>();
+            ownerClaims.put(owner, claims);
+            ownerWorlds.putIfAbsent(owner, Set.of());
+            if (listener != null) listener.ownerAdded(owner);
+        }
+
+        claims.add(claim);
+
+        String world = getWorld(claim);
+        Set<String> worlds = ownerWorlds.getOrDefault(owner, Set.of());
+        if (world == null)
+        {
+            // Worlds are unknown until recalculated.
+            ownerWorlds.put(owner, Set.of());
+        }
+        else if (worlds.isEmpty() && claims.size() == 1)
+        {
+            ownerWorlds.put(owner, Set.of(world));
+        }
+        else if (!worlds.isEmpty() && !worlds.contains(world))
+        {
+            Set<String> newWorlds = new HashSet<>(worlds);
+            newWorlds.add(world);
+            ownerWorlds.put(owner, Set.copyOf(newWorlds));
+        }
+    }
+
+    private void remove(@NotNull Claim claim)
+    {
+        remove(claim, claim.ownerID);
+    }
+
+    private void remove(@NotNull Claim claim, @Nullable UUID owner)
+    {
+        if (owner == null) return;
+
+        Set<Claim> claims = ownerClaims.get(owner);
+
+        if (claims == null) return;
+
+        claims.remove(claim);
+
+        if (claims.isEmpty())
+        {
+            ownerClaims.remove(owner);
+            ownerWorlds.remove(owner);
+            if (listener != null) listener.ownerRemoved(owner);
+            return;
+        }
+
+        ownerWorlds.put(owner, getWorlds(claims));
+    }
+
+    private static @NotNull Set<String> getWorlds(@NotNull Collection<Claim> claims)
+    {
+        Set<String> worlds = new HashSet<>();
+        for (Claim claim : claims)
+        {
+            String world = getWorld(claim);
+            // Claims in unloaded worlds could expire at any rate.
+            if (world == null) return Set.of();
+            worlds.add(world);
+        }
+        return Set.copyOf(worlds);
+    }
+
+    private static @Nullable String getWorld(@NotNull Claim claim)
+    {
+        World world = claim.getLesserBoundaryCorner().getWorld();
+        return world == null ? null : world.getName();
+    }
+
+    /**
+     * Handle a claim whose boundaries have changed. GriefPrevention modifies the original claim in place,
+     * the new claim provided by events is only a temporary copy and must never be indexed.
+     *
+     * @param claim the original claim
+     */
+    private void resize(@NotNull Claim claim)
+    {
+        // Same claim with the same owner, only ensure it and its world remain indexed.
+        add(claim);
+    }
+
+    /**
+     * Listener for events available in all supported versions of GriefPrevention.
+     */
+    private class CommonEvents implements Listener
+    {
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        private void onClaimCreated(@NotNull ClaimCreatedEvent event)
+        {
+            add(event.getClaim());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        private void onClaimDeleted(@NotNull ClaimDeletedEvent event)
+        {
+            remove(event.getClaim());
+        }
+
+    }
+
+    /**
+     * Listener for modern GriefPrevention events.
+     */
+    private class ModernEvents implements Listener
+    {
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        private void onClaimResize(@NotNull ClaimResizeEvent event)
+        {
+            resize(event.getFrom());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        private void onClaimTransfer(@NotNull ClaimTransferEvent event)
+        {
+            // Event is fired before the owner is changed.
+            remove(event.getClaim());
+            add(event.getClaim(), event.getNewOwner());
+        }
+
+    }
+
+    /**
+     * Listener for outdated GriefPrevention events.
+     */
+    private class LegacyEvents implements Listener
+    {
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        private void onClaimModified(@NotNull ClaimModifiedEvent event)
+        {
+            resize(event.getFrom());
+        }
+
+    }
+
+    /**
+     * Listener for changes to the set of claim owners. Called on the main thread.
+     */
+    interface OwnerListener
+    {
+
+        void ownerAdded(@NotNull UUID owner);
+
+        void ownerRemoved(@NotNull UUID owner);
+
+    }
+
+}
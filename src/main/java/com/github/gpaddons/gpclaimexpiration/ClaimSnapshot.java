@@ -0,0 +1,64 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import me.ryanhamshire.GriefPrevention.Claim;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * An immutable copy of the claim data relevant to expiration, safe for use off the main thread.
+ *
+ * @param id the claim ID
+ * @param owner the UUID of the claim owner or {@code null} for administrative claims
+ * @param world the name of the world
+ * @param area the claim area
+ * @param minX the minimum X coordinate
+ * @param minZ the minimum Z coordinate
+ * @param maxX the maximum X coordinate
+ * @param maxZ the maximum Z coordinate
+ * @param child whether the claim is a subdivision
+ */
+record ClaimSnapshot(
+        long id,
+        @Nullable UUID owner,
+        @NotNull String world,
+        int area,
+        int minX,
+        int minZ,
+        int maxX,
+        int maxZ,
+        boolean child)
+{
+
+    /**
+     * Capture a snapshot of a claim. Must be called on the main thread.
+     *
+     * @param claim the claim
+     * @return the snapshot or {@code null} if the claim is in an unloaded world
+     */
+    static @Nullable ClaimSnapshot of(@NotNull Claim claim)
+    {
+        Location lesser = claim.getLesserBoundaryCorner();
+        World world = lesser.getWorld();
+
+        if (world == null) return null;
+
+        Location greater = claim.getGreaterBoundaryCorner();
+        Long id = claim.getID();
+
+        return new ClaimSnapshot(
+                id == null ? -1 : id,
+                claim.ownerID,
+                world.getName(),
+                claim.getArea(),
+                lesser.getBlockX(),
+                lesser.getBlockZ(),
+                greater.getBlockX(),
+                greater.getBlockZ(),
+                claim.parent != null);
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.github.gpaddons.gpclaimexpiration;
 
+import com.github.gpaddons.gpclaimexpiration.metrics.ExpirationMetrics;
 import com.github.gpaddons.util.lang.replacement.ClaimReplacement;
 import me.ryanhamshire.GriefPrevention.Claim;
 import me.ryanhamshire.GriefPrevention.CustomLogEntryTypes;
@@ -7,22 +8,35 @@ import me.ryanhamshire.GriefPrevention.GriefPrevention;
 import me.ryanhamshire.GriefPrevention.events.ClaimExpirationEvent;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.Iterator;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CancellationException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 /**
  * Manages periodic evaluation of users' claims.
@@ -30,113 +44,546 @@ import java.util.stream.Collectors;
 class EvaluationManager
 {
 
+    private static final long DEADLINE_REFRESH_INTERVAL = TimeUnit.MILLISECONDS.convert(1, TimeUnit.DAYS);
+    private static final long CHECKPOINT_INTERVAL_TICKS = 200L;
+    /** Fraction of the adaptive range the rate may increase by per run. */
+    private static final double RATE_RAMP = 0.02;
+    /** Tick interval above the ideal in milliseconds at which the server is considered to have no headroom. */
+    private static final double LAG_TOLERANCE = 2.5;
+
     private final @NotNull GPClaimExpiration plugin;
-    private final @NotNull Random random;
-    private Set<UUID> players;
+    private final @NotNull ClaimOwnerIndex claimIndex;
+    private final @NotNull MainThreadQueue mainThreadQueue;
+    private final @NotNull TickMonitor tickMonitor;
+    private final @NotNull ExpirationMetrics metrics;
+    private final @NotNull SweepCheckpoint checkpoint;
+    private final @NotNull OwnerPool players;
+    private final @NotNull ArrayDeque<UUID> upcoming = new ArrayDeque<>();
+    private final @NotNull PriorityQueue<OwnerDeadline> deadlines = new PriorityQueue<>();
+    private final @NotNull Queue<OwnerChange> ownerChanges = new ConcurrentLinkedQueue<>();
+    private final @NotNull Executor mainExecutor;
+    private final @NotNull Executor asyncExecutor;
+    private final @NotNull Executor ownerExecutor;
+    private final @Nullable ExecutorService ownerService;
+    private final @Nullable Semaphore ownerPermits;
+    private final int batchSize;
+    private final int prefetchSize;
     private int startingPlayers = 0;
-
-    EvaluationManager(@NotNull GPClaimExpiration plugin)
+    private long lastDeadlineRefresh = 0;
+    private long cycleStart = 0;
+    private boolean resumed = false;
+    private long lastReconcile = 0;
+    private volatile double rateMultiplier = 1;
+    private volatile @Nullable CompletableFuture<?> pending;
+    private volatile boolean stopped = false;
+
+    EvaluationManager(
+            @NotNull GPClaimExpiration plugin,
+            @NotNull ClaimOwnerIndex claimIndex,
+            @NotNull MainThreadQueue mainThreadQueue,
+            @NotNull TickMonitor tickMonitor,
+            @NotNull ExpirationMetrics metrics,
+            @NotNull SweepCheckpoint checkpoint)
     {
         this.plugin = plugin;
-        this.random = new Random();
+        this.claimIndex = claimIndex;
+        this.mainThreadQueue = mainThreadQueue;
+        this.tickMonitor = tickMonitor;
+        this.metrics = metrics;
+        this.checkpoint = checkpoint;
+        this.players = new OwnerPool(new Random(), plugin.getConfig().getBoolean("expiration.evaluation.off_heap_pool"));
+        this.mainExecutor = task -> plugin.getServer().getScheduler().runTask(plugin, task);
+        this.asyncExecutor = task -> plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task);
+
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("expiration.evaluation.batch.size", 1));
+        int prefetch = plugin.getConfig().getInt("expiration.evaluation.prefetch", 32);
+        this.prefetchSize = prefetch > 0 ? Math.max(prefetch, batchSize * 2) : 0;
+
+        // Owner evaluation may run on virtual threads, falling back to the scheduler.
+        ExecutorService service = isVirtualThreads() ? newVirtualThreadExecutor(plugin) : null;
+        if (service != null)
+        {
+            // Batches are bounded by their size, single owners by permits.
+            this.ownerPermits = batchSize > 1 ? null
+                    : new Semaphore(Math.max(1, plugin.getConfig().getInt("expiration.evaluation.executor.max_concurrent_owners", 16)));
+        }
+        else
+        {
+            // Batches use a bounded pool rather than the scheduler's unbounded one.
+            if (batchSize > 1) service = newBatchExecutor(Math.max(1, plugin.getConfig().getInt("expiration.evaluation.batch.threads", 4)));
+            this.ownerPermits = null;
+        }
+        this.ownerService = service;
+        this.ownerExecutor = service != null ? service : asyncExecutor;
+
+        // Owners gained or lost between cycles join or leave the current cycle.
+        claimIndex.setOwnerListener(new ClaimOwnerIndex.OwnerListener()
+        {
+            @Override
+            public void ownerAdded(@NotNull UUID owner)
+            {
+                ownerChanges.add(new OwnerChange(owner, true));
+            }
+
+            @Override
+            public void ownerRemoved(@NotNull UUID owner)
+            {
+                ownerChanges.add(new OwnerChange(owner, false));
+            }
+        });
+
+        metrics.setRemainingOwners(() ->
+                getTaskEvaluationType() == EvaluationType.DEADLINE ? deadlines.size() : players.size() + upcoming.size());
+        metrics.setRateMultiplier(() -> rateMultiplier);
+        metrics.setBatchSize(batchSize);
     }
 
-    private void run() {
-        if (players == null || players.isEmpty()) refreshPlayers();
+    /**
+     * Run a single evaluation step.
+     *
+     * @return a future completed with the delay in ticks before the next run
+     */
+    private @NotNull CompletableFuture<Long> run()
+    {
+        if (getTaskEvaluationType() == EvaluationType.DEADLINE) return runDeadline();
+
+        applyOwnerChanges();
 
-        checkNextPlayer();
+        CompletableFuture<Void> refresh;
+        if (hasOwners()) refresh = CompletableFuture.completedFuture(null);
+        else if (!resumed) refresh = resumePlayers();
+        else refresh = refreshPlayers();
 
-        scheduleNextRun(calculateDelay());
+        return refresh
+                .thenComposeAsync(ignored -> batchSize > 1 ? checkNextBatch() : checkNextPlayer(), asyncExecutor)
+                .thenApply(ignored -> calculateDelay());
     }
 
-    private void refreshPlayers()
+    private void applyOwnerChanges()
+    {
+        OwnerChange change;
+        while ((change = ownerChanges.poll()) != null)
+        {
+            if (change.added()) players.add(change.owner());
+            else if (!players.remove(change.owner())) upcoming.remove(change.owner());
+        }
+    }
+
+    private @NotNull CompletableFuture<Void> refreshPlayers()
     {
         GriefPrevention.AddLogEntry("[GPClaimExpiration] Refreshing claim owner list", CustomLogEntryTypes.Debug, true);
-        final Future<Set<UUID>> playersFuture = plugin.getServer().getScheduler().callSyncMethod(plugin, () ->
-                GriefPrevention.instance.dataStore.getClaims().stream().map(claim ->
+        // Exemptions are only remembered for the duration of a cycle.
+        plugin.config().clearExemptions();
+
+        CompletableFuture<Set<UUID>> ownersFuture;
+        if (System.currentTimeMillis() - lastReconcile < getReconcileInterval())
+        {
+            // Index is kept up to date by claim events, no need to scan claims on the main thread.
+            ownersFuture = CompletableFuture.completedFuture(new LinkedHashSet<>(claimIndex.getOwners()));
+        }
+        else
+        {
+            // Rebuild claim index in the same pass used to collect owners.
+            ownersFuture = supplySync(this::reconcile);
+        }
+
+        return ownersFuture
+                .thenAcceptAsync(owners ->
                 {
-                    // Always skip child claims - will be revisited by expiration processing.
-                    if (claim.parent != null) return null;
+                    plugin.scanPlayerData();
+                    players.refill(owners);
+                    startingPlayers = players.size();
+                    checkpoint.startCycle(System.currentTimeMillis(), owners);
+
+                    // Record duration of the completed cycle.
+                    long now = System.nanoTime();
+                    if (cycleStart != 0) metrics.getCycle().record(now - cycleStart);
+                    cycleStart = now;
+
+                    GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Fetched %s unique claim owners.", startingPlayers), CustomLogEntryTypes.Debug, true);
+                }, asyncExecutor)
+                .exceptionally(throwable -> logFailure("Error fetching claim owners' UUIDs from main thread", throwable));
+    }
 
-                    return claim.ownerID;
-                }).filter(Objects::nonNull).collect(Collectors.toSet()));
+    /**
+     * Resume the cycle saved in the checkpoint, if any. Owners who no longer own claims are dropped.
+     *
+     * @return a future completed when the pool has been filled
+     */
+    private @NotNull CompletableFuture<Void> resumePlayers()
+    {
+        resumed = true;
 
+        SweepCheckpoint.Cycle cycle;
         try
         {
-            players = playersFuture.get();
-            startingPlayers = players.size();
-            GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Fetched %s unique claim owners.", startingPlayers), CustomLogEntryTypes.Debug, true);
+            cycle = checkpoint.load();
         }
-        catch (@NotNull InterruptedException | ExecutionException e)
+        catch (IOException e)
         {
-            plugin.getLogger().log(Level.WARNING, "Error fetching claim owners' UUIDs from main thread", e);
+            plugin.getLogger().log(Level.WARNING, "Unable to read evaluation checkpoint, starting a new cycle", e);
+            cycle = null;
         }
+
+        if (cycle == null || cycle.owners().isEmpty()) return refreshPlayers();
+
+        SweepCheckpoint.Cycle saved = cycle;
+
+        // Claim index must still be built for the current claims.
+        return supplySync(this::reconcile)
+                .thenAcceptAsync(owners ->
+                {
+                    plugin.scanPlayerData();
+                    players.refill(saved.owners().stream().filter(owners::contains).toList());
+                    startingPlayers = saved.size();
+
+                    // Convert cycle start to the monotonic clock used for cycle duration.
+                    long elapsed = Math.max(0, System.currentTimeMillis() - saved.start());
+                    cycleStart = System.nanoTime() - TimeUnit.NANOSECONDS.convert(elapsed, TimeUnit.MILLISECONDS);
+
+                    GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Resumed cycle with %s of %s claim owners remaining.",
+                            players.size(), startingPlayers), CustomLogEntryTypes.Debug, true);
+                }, asyncExecutor)
+                .exceptionally(throwable -> logFailure("Error fetching claim owners' UUIDs from main thread", throwable));
     }
 
-    private void checkNextPlayer()
+    /**
+     * Rebuild the claim index from all claims. Must be called on the main thread.
+     *
+     * @return the owners of indexed claims
+     */
+    private @NotNull Set<UUID> reconcile()
     {
+        lastReconcile = System.currentTimeMillis();
+        // Changes are included in the rebuild.
+        ownerChanges.clear();
+        return claimIndex.rebuild(GriefPrevention.instance.dataStore.getClaims());
+    }
+
+    private boolean hasOwners()
+    {
+        return !players.isEmpty() || !upcoming.isEmpty();
+    }
+
+    /**
+     * Remove and return the next owner to evaluate. Owners are drawn from the pool ahead of time so
+     * that their player data can be loaded in the background before their exemptions are checked.
+     *
+     * @param random whether to draw owners in random order
+     * @return the next owner or null if none remain
+     */
+    private @Nullable UUID nextOwner(boolean random)
+    {
+        if (upcoming.size() <= prefetchSize / 2) prefetchOwners(random);
+
+        return upcoming.poll();
+    }
+
+    /**
+     * Record that an owner's evaluation has completed. Owners are not recorded once stopped, as
+     * evaluations cut short by shutdown complete without having finished.
+     *
+     * @param owner the owner
+     */
+    private void markChecked(@NotNull UUID owner)
+    {
+        if (!isStopped()) checkpoint.checked(owner);
+    }
+
+    private void prefetchOwners(boolean random)
+    {
+        List<UUID> drawn = new ArrayList<>();
+        while (upcoming.size() < Math.max(1, prefetchSize))
+        {
+            UUID owner = players.next(random);
+            if (owner == null) break;
+            upcoming.add(owner);
+            drawn.add(owner);
+        }
+
+        if (prefetchSize <= 0 || drawn.isEmpty() || isStopped()) return;
+
+        CompletableFuture.runAsync(() -> plugin.config().prefetchClaimBlocks(drawn), ownerExecutor)
+                .exceptionally(throwable -> logFailure("Error prefetching player data", throwable));
+    }
+
+    private @NotNull CompletableFuture<Void> checkNextPlayer()
+    {
+        // If all concurrent evaluations are in use, wait for the next run.
+        if (ownerPermits != null && !ownerPermits.tryAcquire()) return CompletableFuture.completedFuture(null);
+
+        // Remove from pool, pool will refresh when empty.
+        UUID playerUUID = nextOwner(isRandom());
+
         // Ensure players are available.
-        if (players == null || players.isEmpty()) return;
+        if (playerUUID == null)
+        {
+            if (ownerPermits != null) ownerPermits.release();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (ownerPermits == null) return evaluateOwner(playerUUID).thenRun(() -> markChecked(playerUUID));
 
-        Iterator<UUID> iterator = players.iterator();
-        UUID playerUUID = iterator.next();
+        // Evaluate on a dedicated thread. Owners overlap rather than holding up the next run.
+        CompletableFuture.supplyAsync(() -> evaluateOwner(playerUUID), ownerExecutor)
+                .thenCompose(Function.identity())
+                .thenRun(() -> markChecked(playerUUID))
+                .exceptionally(throwable -> logFailure(String.format("Error evaluating %s", playerUUID), throwable))
+                .whenComplete((ignored, throwable) -> ownerPermits.release());
+        return CompletableFuture.completedFuture(null);
+    }
 
-        // If random order is configured, iterate until the random index is hit.
-        if (isRandom())
+    /**
+     * Evaluate a batch of owners concurrently. Claims for all candidates are fetched in a single
+     * main thread call.
+     *
+     * @return a future completed when the batch has been evaluated
+     */
+    private @NotNull CompletableFuture<Void> checkNextBatch()
+    {
+        List<UUID> batch = new ArrayList<>(batchSize);
+        boolean random = isRandom();
+        for (int i = 0; i < batchSize; ++i)
         {
-            int index = random.nextInt(players.size());
-            for (int i = 1; i < index && iterator.hasNext(); ++i)
+            UUID playerUUID = nextOwner(random);
+            if (playerUUID == null) break;
+            batch.add(playerUUID);
+        }
+
+        if (batch.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        metrics.batchEvaluated(batch.size());
+
+        // Look up owners' last sessions in a single batch.
+        return CompletableFuture.supplyAsync(() -> plugin.getLastQualifyingSessions(batch), ownerExecutor).thenCompose(lastSessions ->
+        {
+            List<Candidate> candidates = new ArrayList<>();
+            for (int i = 0; i < lastSessions.length; ++i)
             {
-                playerUUID = iterator.next();
+                Candidate candidate = findCandidate(batch.get(i), lastSessions[i]);
+                if (candidate != null) candidates.add(candidate);
             }
-        }
 
-        GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Checking expiration for %s", playerUUID),
-                CustomLogEntryTypes.Debug, true);
+            if (candidates.isEmpty()) return CompletableFuture.completedFuture(null);
 
-        // Remove from list, list will refresh when empty.
-        iterator.remove();
+            return supplySync(() ->
+            {
+                // Claims must be top level claims with the correct owner.
+                Map<UUID, List<Claim>> claims = new HashMap<>();
+                for (Candidate candidate : candidates)
+                {
+                    UUID playerUUID = candidate.player().getUniqueId();
+                    claims.put(playerUUID, claimIndex.getClaims(playerUUID));
+                }
+                return claims;
+            }).thenCompose(claims ->
+            {
+                // Evaluate owners' claims concurrently.
+                CompletableFuture<?>[] evaluations = new CompletableFuture[candidates.size()];
+                for (int i = 0; i < evaluations.length; ++i)
+                {
+                    Candidate candidate = candidates.get(i);
+                    List<Claim> ownerClaims = claims.getOrDefault(candidate.player().getUniqueId(), List.of());
+                    evaluations[i] = CompletableFuture.supplyAsync(() -> evaluateClaims(candidate.player(),
+                            ownerClaims, candidate.timeSinceLastSession()), ownerExecutor).thenCompose(Function.identity());
+                }
+                return CompletableFuture.allOf(evaluations);
+            });
+        }).thenRun(() -> batch.forEach(this::markChecked)).exceptionally(throwable -> logFailure("Error evaluating batch of claim owners", throwable));
+    }
+
+    private @NotNull CompletableFuture<Void> evaluateOwner(@NotNull UUID playerUUID)
+    {
+        Candidate candidate = findCandidate(playerUUID, plugin.getLastQualifyingSessions(List.of(playerUUID))[0]);
+
+        if (candidate == null) return CompletableFuture.completedFuture(null);
+
+        return evaluateClaims(candidate.player(), candidate.timeSinceLastSession());
+    }
 
-        OfflinePlayer player = plugin.getServer().getOfflinePlayer(playerUUID);
+    /**
+     * Check whether an owner has been offline long enough for any claim to expire.
+     *
+     * @param playerUUID the owner's UUID
+     * @param lastSession the owner's last qualifying session
+     * @return the owner if claims may be eligible to expire, otherwise null
+     */
+    private @Nullable Candidate findCandidate(@NotNull UUID playerUUID, long lastSession)
+    {
+        GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Checking expiration for %s", playerUUID),
+                CustomLogEntryTypes.Debug, true);
+        metrics.ownerChecked();
 
-        long timeSinceLastSession = System.currentTimeMillis() - plugin.getLastQualifyingSession(player);
+        long timeSinceLastSession = System.currentTimeMillis() - lastSession;
 
-        // Ensure last qualifying session is before the earliest time any claim could expire.
-        if (timeSinceLastSession <= plugin.config().getShortestClaimExpiration()) return;
+        // Ensure last qualifying session is before the earliest time any of the owner's claims could expire.
+        // Fall back to all worlds if the owner's worlds are not known.
+        Set<String> worlds = claimIndex.getWorlds(playerUUID);
+        long shortest = worlds.isEmpty()
+                ? plugin.config().getShortestClaimExpiration()
+                : plugin.config().getShortestClaimExpiration(worlds);
+        if (timeSinceLastSession <= shortest) return null;
 
         GriefPrevention.AddLogEntry(String.format(
                 "[GPClaimExpiration] %s has not been online for %s days, claims may be eligible to delete.",
                 playerUUID, TimeUnit.DAYS.convert(timeSinceLastSession, TimeUnit.MILLISECONDS)),
                 CustomLogEntryTypes.Debug, true);
 
-        evaluateClaims(player, timeSinceLastSession);
+        return new Candidate(plugin.getServer().getOfflinePlayer(playerUUID), timeSinceLastSession);
     }
 
-    private void evaluateClaims(@NotNull OfflinePlayer player, long timeSinceLastSession)
+    private @NotNull CompletableFuture<Long> runDeadline()
     {
-        final Future<Collection<Claim>> playerClaims = plugin.getServer().getScheduler().callSyncMethod(plugin,
-                () -> GriefPrevention.instance.dataStore.getClaims().stream()
-                        // Claims must be top level claims with the correct owner.
-                        .filter(claim -> claim.parent == null && player.getUniqueId().equals(claim.ownerID))
-                        .collect(Collectors.toList()));
+        // Deadlines are recalculated from a full scan.
+        ownerChanges.clear();
 
-        try
+        // Periodically recalculate all deadlines to pick up new owners and claim changes.
+        boolean refreshDue = System.currentTimeMillis() - lastDeadlineRefresh >= DEADLINE_REFRESH_INTERVAL;
+        CompletableFuture<Void> refresh = deadlines.isEmpty() || refreshDue
+                ? refreshDeadlines() : CompletableFuture.completedFuture(null);
+
+        return refresh.thenComposeAsync(ignored ->
         {
-            playerClaims.get().forEach(claim -> evaluateClaim(player, claim, timeSinceLastSession));
-        }
-        catch (CancellationException ignored)
+            OwnerDeadline deadline = deadlines.peek();
+            if (deadline == null || deadline.time() > System.currentTimeMillis()) return CompletableFuture.completedFuture(null);
+
+            deadlines.poll();
+            return checkDeadline(deadline);
+        }, asyncExecutor).thenApply(ignored -> calculateDeadlineDelay());
+    }
+
+    private @NotNull CompletableFuture<Void> refreshDeadlines()
+    {
+        GriefPrevention.AddLogEntry("[GPClaimExpiration] Refreshing claim owner deadlines", CustomLogEntryTypes.Debug, true);
+        plugin.config().clearExemptions();
+        lastDeadlineRefresh = System.currentTimeMillis();
+
+        // Rebuild claim index and collect the distinct durations of each owner's claims.
+        return supplySync(() ->
         {
-            // Do nothing, server is likely shutting down.
-        }
-        catch (@NotNull InterruptedException | ExecutionException e)
+            Map<UUID, long[]> ownerDurations = new HashMap<>();
+            for (UUID owner : reconcile())
+            {
+                ownerDurations.put(owner, claimIndex.getClaims(owner).stream()
+                        .mapToLong(plugin.config()::getProtectionDuration)
+                        .filter(duration -> duration != Long.MAX_VALUE)
+                        .distinct()
+                        .sorted()
+                        .toArray());
+            }
+            return ownerDurations;
+        }).thenAcceptAsync(ownerDurations ->
         {
-            plugin.getLogger().log(Level.WARNING, String.format("Error fetching claims for %s from main thread", player.getUniqueId()), e);
+            plugin.scanPlayerData();
+            deadlines.clear();
+            List<UUID> owners = new ArrayList<>(ownerDurations.keySet());
+            long[] lastSessions = plugin.getLastQualifyingSessions(owners);
+            for (int i = 0; i < lastSessions.length; ++i)
+            {
+                UUID owner = owners.get(i);
+                OwnerDeadline deadline = OwnerDeadline.next(owner, lastSessions[i], ownerDurations.get(owner), 0);
+                if (deadline != null) deadlines.add(deadline);
+            }
+
+            GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Scheduled deadlines for %s of %s unique claim owners.",
+                    deadlines.size(), ownerDurations.size()), CustomLogEntryTypes.Debug, true);
+        }, asyncExecutor).exceptionally(throwable -> logFailure("Error fetching claim owners' durations from main thread", throwable));
+    }
+
+    private @NotNull CompletableFuture<Void> checkDeadline(@NotNull OwnerDeadline deadline)
+    {
+        GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Checking expiration deadline for %s", deadline.owner()),
+                CustomLogEntryTypes.Debug, true);
+        metrics.ownerChecked();
+
+        OfflinePlayer player = plugin.getServer().getOfflinePlayer(deadline.owner());
+        long lastSession = plugin.getLastQualifyingSessions(List.of(deadline.owner()))[0];
+        long timeSinceLastSession = System.currentTimeMillis() - lastSession;
+
+        // If the owner has not been online since the deadline was set, evaluate their claims.
+        CompletableFuture<Void> evaluation = lastSession <= deadline.lastSession()
+                ? evaluateClaims(player, timeSinceLastSession) : CompletableFuture.completedFuture(null);
+
+        // Schedule the next deadline for claims with longer protection.
+        return evaluation.thenRunAsync(() ->
+        {
+            OwnerDeadline next = OwnerDeadline.next(deadline.owner(), lastSession, deadline.durations(), timeSinceLastSession);
+            if (next != null) deadlines.add(next);
+        }, asyncExecutor);
+    }
+
+    private long calculateDeadlineDelay()
+    {
+        OwnerDeadline deadline = deadlines.peek();
+
+        // Always wait an hour between runs.
+        if (deadline == null) return 72000;
+
+        // Convert time remaining to ticks. Minimum 1 tick delay, maximum 1 hour.
+        long ticks = (deadline.time() - System.currentTimeMillis()) / 50;
+        return Math.max(1, Math.min(72000, ticks));
+    }
+
+    private @NotNull CompletableFuture<Void> evaluateClaims(@NotNull OfflinePlayer player, long timeSinceLastSession)
+    {
+        // Claims must be top level claims with the correct owner.
+        return supplySync(() -> claimIndex.getClaims(player.getUniqueId()))
+                .thenComposeAsync(claims -> evaluateClaims(player, claims, timeSinceLastSession), ownerExecutor)
+                .exceptionally(throwable -> logFailure(String.format("Error fetching claims for %s from main thread", player.getUniqueId()), throwable));
+    }
+
+    /**
+     * Evaluate an owner's claims.
+     *
+     * @return a future completed when any resulting deletions have been performed
+     */
+    private @NotNull CompletableFuture<Void> evaluateClaims(
+            @NotNull OfflinePlayer player,
+            @NotNull List<Claim> claims,
+            long timeSinceLastSession)
+    {
+        CompletableFuture<?>[] deletions = new CompletableFuture[claims.size()];
+        for (int i = 0; i < deletions.length; ++i)
+        {
+            deletions[i] = evaluateClaim(player, claims.get(i), timeSinceLastSession);
         }
+        return CompletableFuture.allOf(deletions);
+    }
+
+    /**
+     * Supply a value from the main thread, recording the time spent waiting for the main thread.
+     *
+     * @param supplier the supplier
+     * @param <T> the type of value
+     * @return a future completed on the main thread
+     */
+    private <T> @NotNull CompletableFuture<T> supplySync(@NotNull Supplier<T> supplier)
+    {
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(() ->
+        {
+            metrics.getSyncWait().record(System.nanoTime() - start);
+            return supplier.get();
+        }, mainExecutor);
     }
 
-    private void evaluateClaim(@NotNull OfflinePlayer player, @NotNull Claim claim, long timeSinceLastSession)
+    private @Nullable Void logFailure(@NotNull String message, @NotNull Throwable throwable)
     {
-        if (timeSinceLastSession <= plugin.config().getProtectionDuration(claim)) return;
+        // Failures during shutdown are expected, tasks may not be scheduled.
+        if (!isStopped()) plugin.getLogger().log(Level.WARNING, message, unwrap(throwable));
+        return null;
+    }
+
+    private static @NotNull Throwable unwrap(@NotNull Throwable throwable)
+    {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    private @NotNull CompletableFuture<Void> evaluateClaim(@NotNull OfflinePlayer player, @NotNull Claim claim, long timeSinceLastSession)
+    {
+        metrics.claimEvaluated();
+
+        if (timeSinceLastSession <= plugin.config().getProtectionDuration(claim)) return CompletableFuture.completedFuture(null);
 
         GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] %s has an area of %s and is eligible for delete",
                 claim.getID(), claim.getArea()), CustomLogEntryTypes.Debug, true);
@@ -144,74 +591,291 @@ class EvaluationManager
         // Ensure player is not exempt from claim expiration.
         World world = claim.getLesserBoundaryCorner().getWorld();
         String worldName = world == null ? "///illegal world name\\\\\\" : world.getName();
-        if (plugin.config().isExempt(player, worldName)) return;
+        if (plugin.config().isExempt(player, worldName))
+        {
+            metrics.exemptHit();
+            return CompletableFuture.completedFuture(null);
+        }
 
         GriefPrevention.AddLogEntry(
                 String.format("[GPClaimExpiration] %s is not exempt from expiration.", player.getUniqueId()),
                 CustomLogEntryTypes.Debug,
                 true);
 
-        // Don't attempt to schedule if plugin is disabled.
-        if (!plugin.isEnabled()) return;
+        // Don't attempt to schedule if stopped.
+        if (isStopped()) return CompletableFuture.completedFuture(null);
 
         // Return to main thread - deleting claims is not thread safe.
-        plugin.getServer().getScheduler().runTask(plugin, () -> {
-            // Fire claim expiration event.
-            ClaimExpirationEvent event = new ClaimExpirationEvent(claim);
-            plugin.getServer().getPluginManager().callEvent(event);
+        return CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            try
+            {
+                expireClaim(claim, player.getUniqueId(), timeSinceLastSession, worldName);
+            }
+            finally
+            {
+                metrics.getDeletion().record(System.nanoTime() - start);
+            }
+        }, mainThreadQueue::submit).exceptionally(throwable -> logFailure(
+                String.format("Error expiring claim %s", claim.getID()), throwable));
+    }
+
+    private void expireClaim(@NotNull Claim claim, @NotNull UUID owner, long timeSinceLastSession, @NotNull String worldName)
+    {
+        // Claim may have been deleted, transferred, or resized while waiting for the main thread.
+        if (!claim.inDataStore || !owner.equals(claim.ownerID)
+                || timeSinceLastSession <= plugin.config().getProtectionDuration(claim)) return;
 
-            // Respect event cancellation.
-            if (event.isCancelled()) return;
+        // Owner may have logged in while waiting for the main thread.
+        if (plugin.getServer().getPlayer(owner) != null) return;
 
-            GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Claim %s by %s has expired.",
-                    claim.getID(), claim.ownerID), CustomLogEntryTypes.Debug, false);
+        // In dry run mode, only report what would happen.
+        if (isDryRun())
+        {
+            plugin.getLogger().info(String.format("[Dry run] Claim %s by %s would expire at %s %s, %s (%s blocks).",
+                    claim.getID(), claim.ownerID, worldName, claim.getLesserBoundaryCorner().getBlockX(),
+                    claim.getLesserBoundaryCorner().getBlockZ(), claim.getArea()));
+            return;
+        }
 
-            // Fetch delete commands.
-            List<String> commandList = plugin.config().getClaimCommandList(worldName, new ClaimReplacement(claim));
+        // Fire claim expiration event.
+        ClaimExpirationEvent event = new ClaimExpirationEvent(claim);
+        plugin.getServer().getPluginManager().callEvent(event);
 
-            // Delete claim.
-            GriefPrevention.instance.dataStore.deleteClaim(claim, true);
+        // Respect event cancellation.
+        if (event.isCancelled())
+        {
+            metrics.eventCancelled();
+            return;
+        }
 
-            // Run post-delete commands.
-            for (String command : commandList)
-            {
-                plugin.getServer().dispatchCommand(plugin.getServer().getConsoleSender(), command);
-            }
-        });
+        GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Claim %s by %s has expired.",
+                claim.getID(), claim.ownerID), CustomLogEntryTypes.Debug, false);
+
+        // Fetch delete commands.
+        List<String> commandList = plugin.config().getClaimCommandList(worldName, new ClaimReplacement(claim));
+
+        // Delete claim.
+        GriefPrevention.instance.dataStore.deleteClaim(claim, true);
+        metrics.claimExpired();
+
+        // Run post-delete commands.
+        for (String command : commandList)
+        {
+            plugin.getServer().dispatchCommand(plugin.getServer().getConsoleSender(), command);
+        }
     }
 
     void startScheduling()
     {
         scheduleNextRun(100L);
+
+        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::flushCheckpoint,
+                CHECKPOINT_INTERVAL_TICKS, CHECKPOINT_INTERVAL_TICKS);
+    }
+
+    private void flushCheckpoint()
+    {
+        try
+        {
+            checkpoint.flush();
+        }
+        catch (IOException e)
+        {
+            plugin.getLogger().log(Level.WARNING, "Unable to write evaluation checkpoint to disk", e);
+        }
+    }
+
+    /**
+     * Stop scheduling evaluation and cancel the evaluation in progress.
+     */
+    void shutdown()
+    {
+        stopped = true;
+
+        CompletableFuture<?> future = pending;
+        if (future != null) future.cancel(false);
+
+        if (ownerService != null) ownerService.shutdownNow();
+
+        flushCheckpoint();
+    }
+
+    /**
+     * Create a fixed pool of daemon threads for evaluating batches.
+     *
+     * @param threads the number of threads
+     * @return the executor
+     */
+    private static @NotNull ExecutorService newBatchExecutor(int threads)
+    {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable ->
+        {
+            Thread thread = new Thread(runnable, "GPClaimExpiration Evaluation #" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create an executor that starts a new virtual thread for each task. Virtual threads are only
+     * available on Java 21 and newer, so the executor is obtained reflectively.
+     *
+     * @param plugin the plugin
+     * @return the executor or null if virtual threads are unavailable
+     */
+    private static @Nullable ExecutorService newVirtualThreadExecutor(@NotNull Plugin plugin)
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException | ClassCastException e)
+        {
+            plugin.getLogger().warning("Virtual threads require Java 21 or newer, falling back to the scheduler.");
+            return null;
+        }
+    }
+
+    private boolean isStopped()
+    {
+        return stopped || !plugin.isEnabled();
     }
 
     private void scheduleNextRun(long delay)
     {
-        // Don't attempt to schedule if plugin is disabled.
-        if (!plugin.isEnabled()) return;
+        // Don't attempt to schedule if stopped.
+        if (isStopped()) return;
 
         new BukkitRunnable() {
             @Override
             public void run()
             {
-                EvaluationManager.this.run();
+                EvaluationManager.this.execute();
             }
         }.runTaskLaterAsynchronously(plugin, delay);
     }
 
+    private void execute()
+    {
+        CompletableFuture<Long> future;
+        try
+        {
+            future = run();
+        }
+        catch (RuntimeException e)
+        {
+            // Scheduling the first stage may fail outright, i.e. if the plugin is disabled.
+            future = CompletableFuture.failedFuture(e);
+        }
+        pending = future;
+
+        CompletableFuture<Long> current = future;
+
+        current.whenComplete((delay, throwable) ->
+        {
+            // Cancelled futures are the result of shutting down.
+            if (current.isCancelled()) return;
+
+            if (throwable != null)
+            {
+                logFailure("Error evaluating claim expiration", throwable);
+                // Back off for an hour, matching the delay used when no owners are available.
+                delay = 72000L;
+            }
+
+            scheduleNextRun(delay);
+        });
+    }
+
     private long calculateDelay()
     {
         // Always wait an hour between runs.
-        if (players == null || players.isEmpty()) return 72000;
+        if (!hasOwners()) return 72000;
+
+        // Batches run less often to preserve the configured rate.
+        double rate = getTaskEvaluationValue() * updateRateMultiplier() / batchSize;
 
         if (getTaskEvaluationType() == EvaluationType.PERCENT)
         {
             // Schedule based on percentage per hour. Minimum 1 tick delay.
-            return Math.max(1, (long) (72000 / (getTaskEvaluationValue() * startingPlayers)));
+            return Math.max(1, (long) (72000 / (rate * startingPlayers)));
         }
 
         // Schedule a fixed number per hour. Minimum 1 tick delay.
-        return Math.max(1, (long) (72000 / getTaskEvaluationValue()));
+        return Math.max(1, (long) (72000 / rate));
+    }
+
+    /**
+     * Update the multiplier applied to the configured rate based on server load.
+     *
+     * <p>The configured rate is the floor, so a cycle always completes within the time it would
+     * without adaptive scheduling. The rate climbs gradually towards the ceiling while the server
+     * has headroom and drops straight back to the floor as soon as it does not.
+     *
+     * @return the current multiplier
+     */
+    private double updateRateMultiplier()
+    {
+        double ceiling = getAdaptiveCeiling();
+
+        if (ceiling <= 1)
+        {
+            rateMultiplier = 1;
+            return rateMultiplier;
+        }
+
+        double headroom = getHeadroom();
+
+        if (headroom <= 0)
+        {
+            rateMultiplier = 1;
+        }
+        else
+        {
+            double range = ceiling - 1;
+            rateMultiplier = Math.min(1 + range * headroom, rateMultiplier + range * RATE_RAMP);
+        }
+
+        return rateMultiplier;
+    }
+
+    /**
+     * Get the fraction of tick time available for more work.
+     *
+     * @return the headroom between 0 and 1
+     */
+    private double getHeadroom()
+    {
+        double tickTime = tickMonitor.getAverageTickTime();
+
+        if (!Double.isNaN(tickTime))
+        {
+            double target = Math.min(TickMonitor.TICK_MILLIS,
+                    Math.max(1, plugin.getConfig().getDouble("expiration.evaluation.rate.adaptive.target_mspt", 40)));
+            return Math.max(0, Math.min(1, (target - tickTime) / target));
+        }
+
+        // Without tick time, only lag is observable. Ticks arriving on schedule count as full headroom.
+        double lag = tickMonitor.getAverageInterval() - TickMonitor.TICK_MILLIS;
+        return Math.max(0, Math.min(1, (LAG_TOLERANCE - lag) / LAG_TOLERANCE));
+    }
+
+    private boolean isDryRun()
+    {
+        return plugin.getConfig().getBoolean("expiration.dry_run");
+    }
+
+    private long getReconcileInterval()
+    {
+        int hours = plugin.getConfig().getInt("expiration.evaluation.reconcile_hours", 168);
+        return TimeUnit.MILLISECONDS.convert(Math.max(0, hours), TimeUnit.HOURS);
+    }
+
+    private boolean isVirtualThreads()
+    {
+        return "VIRTUAL".equalsIgnoreCase(plugin.getConfig().getString("expiration.evaluation.executor.type"));
     }
 
     private boolean isRandom()
@@ -229,4 +893,28 @@ class EvaluationManager
         return Math.max(0.1, plugin.getConfig().getDouble("expiration.evaluation.rate.value", 4.35));
     }
 
+    private double getAdaptiveCeiling()
+    {
+        if (!plugin.getConfig().getBoolean("expiration.evaluation.rate.adaptive.enabled")) return 1;
+
+        double max = plugin.getConfig().getDouble("expiration.evaluation.rate.adaptive.max_value");
+        return max / getTaskEvaluationValue();
+    }
+
+    /**
+     * An owner whose claims may be eligible to expire.
+     *
+     * @param player the owner
+     * @param timeSinceLastSession the time since the owner's last qualifying session
+     */
+    private record Candidate(@NotNull OfflinePlayer player, long timeSinceLastSession) {}
+
+    /**
+     * A change to the set of claim owners.
+     *
+     * @param owner the owner
+     * @param added whether the owner was added or removed
+     */
+    private record OwnerChange(@NotNull UUID owner, boolean added) {}
+
 }
@@ -11,7 +11,7 @@ import java.util.Locale;
 enum EvaluationType
 {
 
-    PERCENT, COUNT;
+    PERCENT, COUNT, DEADLINE;
 
     public static @NotNull EvaluationType of(@Nullable String value)
     {
@@ -0,0 +1,186 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import com.github.gpaddons.gpclaimexpiration.lang.CommandMessage;
+import com.github.gpaddons.gpclaimexpiration.metrics.ExpirationMetrics;
+import com.github.gpaddons.util.lang.Lang;
+import com.github.gpaddons.util.lang.MessageReplacement;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+
+/**
+ * Administrative command for GPClaimExpiration.
+ */
+class ExpirationCommand implements TabExecutor
+{
+
+    private static final List<String> SUBCOMMANDS = List.of("forecast", "stats");
+    private static final int DEFAULT_FORECAST_DAYS = 30;
+    private static final int MAX_FORECAST_DAYS = 365;
+
+    private final @NotNull GPClaimExpiration plugin;
+    // Only accessed on the main thread.
+    private boolean forecastRunning = false;
+
+    ExpirationCommand(@NotNull GPClaimExpiration plugin)
+    {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(
+            @NotNull CommandSender sender,
+            @NotNull Command command,
+            @NotNull String label,
+            @NotNull String @NotNull [] args)
+    {
+        if (args.length < 1)
+        {
+            send(sender, CommandMessage.USAGE, value -> value.replace("$label", label));
+            return true;
+        }
+
+        switch (args[0].toLowerCase(Locale.ENGLISH))
+        {
+            case "forecast" -> forecast(sender, args);
+            case "stats" -> stats(sender);
+            default -> send(sender, CommandMessage.USAGE, value -> value.replace("$label", label));
+        }
+
+        return true;
+    }
+
+    private void forecast(@NotNull CommandSender sender, @NotNull String @NotNull [] args)
+    {
+        int days = DEFAULT_FORECAST_DAYS;
+        if (args.length > 1)
+        {
+            try
+            {
+                days = Math.max(1, Math.min(MAX_FORECAST_DAYS, Integer.parseInt(args[1])));
+            }
+            catch (NumberFormatException e)
+            {
+                send(sender, CommandMessage.INVALID_NUMBER, value -> value.replace("$value", args[1]));
+                return;
+            }
+        }
+
+        // Forecasts are expensive, only allow one at a time.
+        if (forecastRunning)
+        {
+            send(sender, CommandMessage.FORECAST_RUNNING);
+            return;
+        }
+
+        // Snapshot is captured on the main thread, everything else happens asynchronously.
+        ExpirationForecast forecast = new ExpirationForecast(plugin, days);
+        String claims = String.valueOf(forecast.size());
+        forecastRunning = true;
+        send(sender, CommandMessage.FORECAST_STARTED, value -> value.replace("$claims", claims));
+
+        forecast.run().whenComplete((result, throwable) ->
+        {
+            // Don't attempt to schedule if plugin is disabled.
+            if (!plugin.isEnabled()) return;
+
+            plugin.getServer().getScheduler().runTask(plugin, () ->
+            {
+                forecastRunning = false;
+
+                if (throwable != null)
+                {
+                    plugin.getLogger().log(Level.WARNING, "Error running expiration forecast", throwable);
+                    send(sender, CommandMessage.FORECAST_FAILED);
+                    return;
+                }
+
+                send(sender, CommandMessage.FORECAST_COMPLETED, value -> value
+                        .replace("$expiring", String.valueOf(result.expiring()))
+                        .replace("$area", String.valueOf(result.area()))
+                        .replace("$file", result.report().getFileName().toString()));
+            });
+        });
+    }
+
+    private void stats(@NotNull CommandSender sender)
+    {
+        ExpirationMetrics metrics = plugin.getMetrics();
+
+        send(sender, CommandMessage.STATS_EVALUATION, value -> value
+                .replace("$owners", String.valueOf(metrics.getOwnersChecked()))
+                .replace("$claims", String.valueOf(metrics.getClaimsEvaluated()))
+                .replace("$exempt", String.valueOf(metrics.getExemptHits()))
+                .replace("$expired", String.valueOf(metrics.getClaimsExpired()))
+                .replace("$cancelled", String.valueOf(metrics.getEventCancellations())));
+        send(sender, CommandMessage.STATS_POOL, value -> value
+                .replace("$remaining", String.valueOf(metrics.getRemainingOwners()))
+                .replace("$queued", String.valueOf(metrics.getQueuedDeletions()))
+                .replace("$rate", format(metrics.getRateMultiplier())));
+        send(sender, CommandMessage.STATS_BATCH, value -> value
+                .replace("$size", String.valueOf(metrics.getBatchSize()))
+                .replace("$count", String.valueOf(metrics.getBatchesRun()))
+                .replace("$average", format(metrics.getAverageBatchSize())));
+        send(sender, CommandMessage.STATS_SYNC_WAIT, value -> value
+                .replace("$mean", format(metrics.getSyncWaitMeanMillis()))
+                .replace("$p99", format(metrics.getSyncWaitP99Millis()))
+                .replace("$max", format(metrics.getSyncWaitMaxMillis()))
+                .replace("$count", String.valueOf(metrics.getSyncWait().getCount())));
+        send(sender, CommandMessage.STATS_DELETION, value -> value
+                .replace("$mean", format(metrics.getDeletionMeanMillis()))
+                .replace("$p99", format(metrics.getDeletionP99Millis()))
+                .replace("$max", format(metrics.getDeletionMaxMillis()))
+                .replace("$count", String.valueOf(metrics.getDeletion().getCount())));
+        send(sender, CommandMessage.STATS_CYCLE, value -> value
+                .replace("$mean", format(metrics.getCycleMeanHours()))
+                .replace("$max", format(metrics.getCycleMaxHours()))
+                .replace("$count", String.valueOf(metrics.getCyclesCompleted())));
+    }
+
+    /**
+     * Send command feedback. Unlike other messages, command feedback falls back to its default if
+     * unset so that administrators always receive a response.
+     *
+     * @param sender the recipient
+     * @param message the message
+     * @param replacements the variable replacement providers
+     */
+    private static void send(
+            @NotNull CommandSender sender,
+            @NotNull CommandMessage message,
+            MessageReplacement @NotNull ... replacements)
+    {
+        String value = Lang.get(message);
+
+        for (MessageReplacement replacement : replacements)
+        {
+            value = replacement.replace(value);
+        }
+
+        sender.sendMessage(value);
+    }
+
+    private static @NotNull String format(double value)
+    {
+        return String.format(Locale.ENGLISH, "%.2f", value);
+    }
+
+    @Override
+    public @NotNull List<String> onTabComplete(
+            @NotNull CommandSender sender,
+            @NotNull Command command,
+            @NotNull String alias,
+            @NotNull String @NotNull [] args)
+    {
+        if (args.length != 1) return List.of();
+
+        String prefix = args[0].toLowerCase(Locale.ENGLISH);
+        return SUBCOMMANDS.stream().filter(subcommand -> subcommand.startsWith(prefix)).toList();
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import me.ryanhamshire.GriefPrevention.Claim;
+import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A dry run of claim expiration over a snapshot of all claims.
+ *
+ * <p>The only main thread work is copying claims into {@link ClaimSnapshot ClaimSnapshots}.
+ * Evaluation is performed in parallel and the resulting report is written to the plugin's data folder.
+ */
+class ExpirationForecast
+{
+
+    private static final long DAY = TimeUnit.MILLISECONDS.convert(1, TimeUnit.DAYS);
+
+    private final @NotNull GPClaimExpiration plugin;
+    private final int days;
+    private final long now;
+    private final @NotNull List<ClaimSnapshot> snapshots;
+    private final @NotNull Map<UUID, Long> lastSessions = new HashMap<>();
+    private final @NotNull AtomicLongArray areaPerDay;
+    private final @NotNull AtomicLongArray claimsPerDay;
+
+    /**
+     * Capture a snapshot of all claims for a forecast. Must be called on the main thread.
+     *
+     * @param plugin the plugin
+     * @param days the number of days to forecast
+     */
+    ExpirationForecast(@NotNull GPClaimExpiration plugin, int days)
+    {
+        this.plugin = plugin;
+        this.days = days;
+        this.now = System.currentTimeMillis();
+        this.areaPerDay = new AtomicLongArray(days);
+        this.claimsPerDay = new AtomicLongArray(days);
+
+        Collection<Claim> claims = GriefPrevention.instance.dataStore.getClaims();
+        List<ClaimSnapshot> list = new ArrayList<>(claims.size());
+        for (Claim claim : claims)
+        {
+            ClaimSnapshot snapshot = ClaimSnapshot.of(claim);
+            if (snapshot != null) list.add(snapshot);
+        }
+        this.snapshots = list;
+    }
+
+    /**
+     * Get the number of claims captured.
+     *
+     * @return the number of claims
+     */
+    int size()
+    {
+        return snapshots.size();
+    }
+
+    /**
+     * Evaluate all claims in parallel and write the report.
+     *
+     * @return a future completed with the result of the forecast
+     */
+    @NotNull CompletableFuture<Result> run()
+    {
+        return CompletableFuture.supplyAsync(() ->
+        {
+            // Resolve all owners' last sessions in a single batch before evaluating in parallel.
+            List<UUID> owners = snapshots.stream()
+                    .filter(claim -> !claim.child() && claim.owner() != null)
+                    .map(ClaimSnapshot::owner)
+                    .distinct()
+                    .toList();
+            long[] sessions = plugin.getLastQualifyingSessions(owners);
+            for (int i = 0; i < sessions.length; ++i)
+            {
+                lastSessions.put(owners.get(i), sessions[i]);
+            }
+
+            List<ClaimSnapshot> expiring = snapshots.parallelStream()
+                    .filter(this::evaluate)
+                    .sorted(Comparator.comparingLong(ClaimSnapshot::id))
+                    .toList();
+
+            Path path = plugin.getDataFolder().toPath().resolve(
+                    "forecast-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(now)) + ".txt");
+            try
+            {
+                write(path, expiring);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException("Unable to write forecast to " + path, e);
+            }
+
+            long area = expiring.stream().mapToLong(ClaimSnapshot::area).sum();
+            return new Result(expiring.size(), area, path);
+        }, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evaluate a claim, recording when it would expire if within the forecast.
+     *
+     * @param claim the claim
+     * @return true if the claim would expire now
+     */
+    private boolean evaluate(@NotNull ClaimSnapshot claim)
+    {
+        // Subdivisions are deleted with their parent. Administrative claims do not expire.
+        if (claim.child() || claim.owner() == null) return false;
+
+        long duration = plugin.config().getDurationTable(claim.world()).get(claim.area());
+
+        if (duration == Long.MAX_VALUE) return false;
+
+        long lastSession = lastSessions.getOrDefault(claim.owner(), 0L);
+
+        // Claims expire when the time since the last session exceeds the duration.
+        long timeSinceLastSession = now - lastSession;
+        boolean expired = timeSinceLastSession > duration;
+        long day = expired ? -1 : (duration - timeSinceLastSession) / DAY;
+
+        // Only check exemption for claims within the forecast.
+        if (day >= days) return false;
+        if (plugin.config().isExempt(plugin.getServer().getOfflinePlayer(claim.owner()), claim.world())) return false;
+
+        if (expired) return true;
+
+        areaPerDay.addAndGet((int) day, claim.area());
+        claimsPerDay.incrementAndGet((int) day);
+        return false;
+    }
+
+    private void write(@NotNull Path path, @NotNull List<ClaimSnapshot> expiring) throws IOException
+    {
+        Files.createDirectories(path.getParent());
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8))
+        {
+            writer.write(String.format("GPClaimExpiration forecast generated %s for %s claims%n", new Date(now), snapshots.size()));
+            writer.newLine();
+
+            writer.write(String.format("Claims that would expire now: %s%n", expiring.size()));
+            writer.write(String.format("%-10s %-36s %-20s %-36s %s%n", "ID", "Owner", "World", "Bounds", "Area"));
+            for (ClaimSnapshot claim : expiring)
+            {
+                writer.write(String.format("%-10s %-36s %-20s %-36s %s%n",
+                        claim.id(), claim.owner(), claim.world(),
+                        String.format("%s, %s to %s, %s", claim.minX(), claim.minZ(), claim.maxX(), claim.maxZ()),
+                        claim.area()));
+            }
+            writer.newLine();
+
+            writer.write(String.format("Claims expiring over the next %s days:%n", days));
+            writer.write(String.format("%-6s %-10s %s%n", "Day", "Claims", "Area"));
+            for (int day = 0; day < days; ++day)
+            {
+                writer.write(String.format("%-6s %-10s %s%n", day + 1, claimsPerDay.get(day), areaPerDay.get(day)));
+            }
+        }
+    }
+
+    /**
+     * The result of a forecast.
+     *
+     * @param expiring the number of claims that would expire now
+     * @param area the total area of claims that would expire now
+     * @param report the path of the written report
+     */
+    record Result(int expiring, long area, @NotNull Path report) {}
+
+}
@@ -2,15 +2,39 @@ package com.github.gpaddons.gpclaimexpiration;
 
 import com.github.gpaddons.gpclaimexpiration.config.Configuration;
 import com.github.gpaddons.gpclaimexpiration.lang.Message;
+import com.github.gpaddons.gpclaimexpiration.listener.ExemptionListener;
 import com.github.gpaddons.gpclaimexpiration.listener.LegacyWarningListener;
 import com.github.gpaddons.gpclaimexpiration.listener.ModernWarningListener;
+import com.github.gpaddons.gpclaimexpiration.listener.WorldListener;
+import com.github.gpaddons.gpclaimexpiration.metrics.ExpirationMetrics;
+import com.github.gpaddons.gpclaimexpiration.session.BukkitLastSeenProvider;
+import com.github.gpaddons.gpclaimexpiration.session.ChainedLastSeenProvider;
+import com.github.gpaddons.gpclaimexpiration.session.JdbcLastSeenProvider;
+import com.github.gpaddons.gpclaimexpiration.session.LastPlayedIndex;
+import com.github.gpaddons.gpclaimexpiration.session.LastSeenProvider;
+import com.github.gpaddons.gpclaimexpiration.session.PaperLastSeenProvider;
+import com.github.gpaddons.gpclaimexpiration.session.SessionTracker;
 import com.github.gpaddons.util.lang.Lang;
 import com.github.jikoo.planarwrappers.service.VaultPermission;
+import me.ryanhamshire.GriefPrevention.CustomLogEntryTypes;
+import me.ryanhamshire.GriefPrevention.GriefPrevention;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
 /**
  * A Bukkit plugin for improved expiration of GriefPrevention claims.
  */
@@ -19,6 +43,13 @@ public class GPClaimExpiration extends JavaPlugin
 
     private VaultPermission vault;
     private Configuration config;
+    private SessionTracker sessionTracker;
+    private LastPlayedIndex lastPlayedIndex;
+    private LastSeenProvider lastSeen;
+    private LastSeenProvider localLastSeen;
+    private JdbcLastSeenProvider databaseLastSeen;
+    private ExpirationMetrics metrics;
+    private EvaluationManager evaluationManager;
 
     @Override
     public void onEnable()
@@ -34,7 +65,14 @@ public class GPClaimExpiration extends JavaPlugin
         this.vault = new VaultPermission(this);
 
         // Register listeners.
-        getServer().getPluginManager().registerEvents(new UnprotectedPetAbandoner(this), this);
+        UnprotectedPetAbandoner petAbandoner = new UnprotectedPetAbandoner(this);
+        getServer().getPluginManager().registerEvents(petAbandoner, this);
+        getServer().getPluginManager().registerEvents(new ExemptionListener(this), this);
+        getServer().getPluginManager().registerEvents(new WorldListener(this), this);
+
+        // Index claims by owner for evaluation.
+        ClaimOwnerIndex claimIndex = new ClaimOwnerIndex();
+        claimIndex.register(this);
 
         // Only bother with warning listener if message is set.
         if (Lang.isSet(Message.NOTIFICATION_EXPIRATION))
@@ -50,16 +88,208 @@ public class GPClaimExpiration extends JavaPlugin
             }
         }
 
+        // Register administrative command.
+        PluginCommand command = getCommand("gpce");
+        if (command != null)
+        {
+            ExpirationCommand executor = new ExpirationCommand(this);
+            command.setExecutor(executor);
+            command.setTabCompleter(executor);
+        }
+
         // Cancel existing tasks.
+        stopEvaluation();
         getServer().getScheduler().cancelTasks(this);
 
+        // Track qualifying sessions.
+        closeSessionTracker();
+        try
+        {
+            sessionTracker = new SessionTracker(this, getDataFolder().toPath().resolve("sessions.dat"));
+            sessionTracker.start();
+        }
+        catch (IOException e)
+        {
+            getLogger().log(Level.WARNING, "Unable to open session store, falling back to last played times", e);
+            sessionTracker = null;
+        }
+
+        // Read last played times in bulk at the start of each cycle.
+        lastPlayedIndex = null;
+        if (getConfig().getBoolean("expiration.session.scan_player_data", true) && !getServer().getWorlds().isEmpty())
+        {
+            lastPlayedIndex = new LastPlayedIndex(this,
+                    getServer().getWorlds().get(0).getWorldFolder().toPath().resolve("playerdata"));
+            lastPlayedIndex.start();
+        }
+
+        // Resolve last sessions from the most specific source available.
+        closeDatabaseLastSeen();
+        createLastSeenProviders();
+
+        // Process main thread work within the configured tick budget.
+        MainThreadQueue mainThreadQueue = new MainThreadQueue(this);
+        mainThreadQueue.start();
+
+        // Index loaded pets for bulk abandonment.
+        new PetIndex(this, petAbandoner, mainThreadQueue).start();
+
+        // Sample server load for adaptive evaluation.
+        TickMonitor tickMonitor = new TickMonitor(this);
+        tickMonitor.start();
+
+        // Expose metrics over JMX.
+        if (metrics != null) metrics.unregister();
+        metrics = new ExpirationMetrics();
+        metrics.setQueuedDeletions(mainThreadQueue::size);
+        try
+        {
+            metrics.register();
+        }
+        catch (JMException e)
+        {
+            getLogger().log(Level.WARNING, "Unable to register metrics MBean", e);
+        }
+
+        // Persist cycle progress across restarts.
+        SweepCheckpoint checkpoint = new SweepCheckpoint(getDataFolder().toPath().resolve("sweep.dat"),
+                getDataFolder().toPath().resolve("sweep.log"));
+        evaluationManager = new EvaluationManager(this, claimIndex, mainThreadQueue, tickMonitor, metrics, checkpoint);
+
         // Schedule claim cleanup task.
-        new EvaluationManager(this).startScheduling();
+        evaluationManager.startScheduling();
+    }
+
+    @Override
+    public void onDisable()
+    {
+        stopEvaluation();
+        closeSessionTracker();
+        closeDatabaseLastSeen();
+
+        if (metrics != null) metrics.unregister();
+    }
+
+    private void stopEvaluation()
+    {
+        if (evaluationManager == null) return;
+
+        evaluationManager.shutdown();
+        evaluationManager = null;
+    }
+
+    private void closeDatabaseLastSeen()
+    {
+        if (databaseLastSeen == null) return;
+
+        databaseLastSeen.close();
+        databaseLastSeen = null;
+    }
+
+    private void closeSessionTracker()
+    {
+        if (sessionTracker == null) return;
+
+        try
+        {
+            sessionTracker.close();
+        }
+        catch (IOException e)
+        {
+            getLogger().log(Level.WARNING, "Unable to write sessions to disk", e);
+        }
+
+        sessionTracker = null;
+    }
+
+    /**
+     * Rescan player data files for last played times, if enabled. Blocks until complete, so this
+     * should not be called on the main thread.
+     */
+    void scanPlayerData()
+    {
+        LastPlayedIndex index = lastPlayedIndex;
+
+        if (index == null) return;
+
+        try
+        {
+            long start = System.nanoTime();
+            index.scan();
+            GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Read last played times of %s players in %sms.",
+                    index.size(), TimeUnit.MILLISECONDS.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS)),
+                    CustomLogEntryTypes.Debug, true);
+        }
+        catch (IOException e)
+        {
+            getLogger().log(Level.WARNING, "Unable to read player data, falling back to last played times", e);
+        }
+    }
+
+    private void createLastSeenProviders()
+    {
+        List<LastSeenProvider> providers = new ArrayList<>();
+        List<LastSeenProvider> localProviders = new ArrayList<>();
+
+        // Recorded qualifying sessions take priority over any other activity.
+        if (sessionTracker != null) providers.add(sessionTracker);
+        if (lastPlayedIndex != null) providers.add(lastPlayedIndex);
+        localProviders.addAll(providers);
+
+        String url = getConfig().getString("expiration.session.jdbc.url", "");
+        if (url != null && !url.isEmpty())
+        {
+            databaseLastSeen = new JdbcLastSeenProvider(getLogger(), url, getDatabaseProperties(),
+                    getConfig().getString("expiration.session.jdbc.query",
+                            "SELECT uuid, last_seen FROM last_seen WHERE uuid IN ($uuids)"));
+            providers.add(databaseLastSeen);
+        }
+
+        PaperLastSeenProvider paper = PaperLastSeenProvider.create(getServer());
+        if (paper != null)
+        {
+            providers.add(paper);
+            localProviders.add(paper);
+        }
+
+        BukkitLastSeenProvider bukkit = new BukkitLastSeenProvider(getServer());
+        providers.add(bukkit);
+        localProviders.add(bukkit);
+
+        this.lastSeen = new ChainedLastSeenProvider(providers);
+        this.localLastSeen = new ChainedLastSeenProvider(localProviders);
+    }
+
+    private @NotNull Properties getDatabaseProperties()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("user", getConfig().getString("expiration.session.jdbc.user", ""));
+        properties.setProperty("password", getConfig().getString("expiration.session.jdbc.password", ""));
+
+        // Timeouts are set per connection, DriverManager's login timeout is shared by all plugins.
+        ConfigurationSection driverProperties = getConfig().getConfigurationSection("expiration.session.jdbc.properties");
+        if (driverProperties == null)
+        {
+            properties.setProperty("connectTimeout", "5000");
+            properties.setProperty("loginTimeout", "5");
+        }
+        else
+        {
+            for (String key : driverProperties.getKeys(false))
+            {
+                properties.setProperty(key, String.valueOf(driverProperties.get(key)));
+            }
+        }
+
+        return properties;
     }
 
     /**
      * Gets a player's last qualifying online session timestamp.
      *
+     * <p>Only local sources are consulted, so this is safe to call on the main thread. Sources that
+     * may block, such as a database, are only used by {@link #getLastQualifyingSessions(Collection)}.
+     *
      * @param player the OfflinePlayer to check
      * @return the player's last online
      */
@@ -67,8 +297,29 @@ public class GPClaimExpiration extends JavaPlugin
     {
         if (player.isOnline()) return System.currentTimeMillis();
 
-        // FUTURE feature: rolling session system / support Paper's getLastOnline / piggyback PLAN
-        return player.getLastPlayed();
+        return localLastSeen.lookup(List.of(player.getUniqueId()))[0];
+    }
+
+    /**
+     * Gets the last qualifying online session timestamps of many players in a single lookup.
+     * May block on remote sources, so this must not be called on the main thread.
+     *
+     * @param uuids the UUIDs of the players to check
+     * @return the players' last online in the iteration order of the UUIDs
+     */
+    public long @NotNull [] getLastQualifyingSessions(@NotNull Collection<UUID> uuids)
+    {
+        long[] lastSessions = lastSeen.lookup(uuids);
+
+        long now = System.currentTimeMillis();
+        int index = 0;
+        for (UUID uuid : uuids)
+        {
+            if (getServer().getPlayer(uuid) != null) lastSessions[index] = now;
+            ++index;
+        }
+
+        return lastSessions;
     }
 
     public @NotNull Configuration config()
@@ -76,6 +327,11 @@ public class GPClaimExpiration extends JavaPlugin
         return config;
     }
 
+    public @NotNull ExpirationMetrics getMetrics()
+    {
+        return metrics;
+    }
+
     public VaultPermission getPermissionBridge()
     {
         return vault;
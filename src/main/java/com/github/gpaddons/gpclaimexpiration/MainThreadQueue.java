@@ -0,0 +1,109 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import me.ryanhamshire.GriefPrevention.CustomLogEntryTypes;
+import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * A queue of work that must be performed on the main thread.
+ *
+ * <p>The queue is drained once per tick until the configured time budget is exhausted. Remaining
+ * work is carried over to the next tick. At least one task is always run per tick to guarantee
+ * progress.
+ */
+class MainThreadQueue implements Runnable
+{
+
+    private final @NotNull Plugin plugin;
+    private final @NotNull Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final @NotNull AtomicInteger depth = new AtomicInteger();
+    private boolean backlogged = false;
+
+    MainThreadQueue(@NotNull Plugin plugin)
+    {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Begin draining the queue every tick.
+     */
+    void start()
+    {
+        plugin.getServer().getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+    }
+
+    /**
+     * Add a task to the queue. May be called from any thread.
+     *
+     * @param task the task
+     */
+    void submit(@NotNull Runnable task)
+    {
+        tasks.add(task);
+        depth.incrementAndGet();
+    }
+
+    /**
+     * Get the number of tasks awaiting execution.
+     *
+     * @return the queue depth
+     */
+    int size()
+    {
+        return depth.get();
+    }
+
+    @Override
+    public void run()
+    {
+        long budget = getTickBudget();
+        long start = System.nanoTime();
+
+        Runnable task;
+        while ((task = tasks.poll()) != null)
+        {
+            depth.decrementAndGet();
+
+            try
+            {
+                task.run();
+            }
+            catch (RuntimeException e)
+            {
+                plugin.getLogger().log(Level.WARNING, "Error running queued task", e);
+            }
+
+            if (System.nanoTime() - start >= budget) break;
+        }
+
+        int remaining = size();
+
+        // Only log when a backlog starts or clears to prevent spamming the log every tick.
+        if (remaining > 0 && !backlogged)
+        {
+            backlogged = true;
+            GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Tick budget exhausted, carrying %s tasks to next tick.",
+                    remaining), CustomLogEntryTypes.Debug, true);
+        }
+        else if (remaining == 0 && backlogged)
+        {
+            backlogged = false;
+            GriefPrevention.AddLogEntry("[GPClaimExpiration] Main thread task backlog cleared.",
+                    CustomLogEntryTypes.Debug, true);
+        }
+    }
+
+    private long getTickBudget()
+    {
+        double millis = Math.max(0.1, plugin.getConfig().getDouble("expiration.evaluation.tick_budget_ms", 5));
+        return (long) (millis * TimeUnit.NANOSECONDS.convert(1, TimeUnit.MILLISECONDS));
+    }
+
+}
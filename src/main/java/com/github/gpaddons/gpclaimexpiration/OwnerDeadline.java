@@ -0,0 +1,65 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * The next point in time at which one of an owner's claims may become eligible for expiration.
+ *
+ * @param owner the UUID of the claim owner
+ * @param lastSession the owner's last qualifying session when the deadline was calculated
+ * @param durations the distinct protection durations of the owner's claims in ascending order
+ * @param index the index of the duration the deadline represents
+ */
+record OwnerDeadline(@NotNull UUID owner, long lastSession, long @NotNull [] durations, int index)
+        implements Comparable<OwnerDeadline>
+{
+
+    /**
+     * Create the first deadline that has not yet been evaluated after the specified time.
+     *
+     * @param owner the UUID of the claim owner
+     * @param lastSession the owner's last qualifying session
+     * @param durations the distinct protection durations of the owner's claims in ascending order
+     * @param timeSinceLastSession the time since the owner's last qualifying session
+     * @return the deadline or {@code null} if no claims can expire later
+     */
+    static @Nullable OwnerDeadline next(
+            @NotNull UUID owner,
+            long lastSession,
+            long @NotNull [] durations,
+            long timeSinceLastSession)
+    {
+        for (int i = 0; i < durations.length; ++i)
+        {
+            // Claims expire when the time since the last session exceeds the duration.
+            if (durations[i] >= timeSinceLastSession) return new OwnerDeadline(owner, lastSession, durations, i);
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the time at which the deadline passes.
+     *
+     * @return the deadline in milliseconds since the epoch
+     */
+    long time()
+    {
+        long duration = durations[index];
+
+        // Prevent overflow.
+        if (duration >= Long.MAX_VALUE - lastSession - 1) return Long.MAX_VALUE;
+
+        return lastSession + duration + 1;
+    }
+
+    @Override
+    public int compareTo(@NotNull OwnerDeadline other)
+    {
+        return Long.compare(time(), other.time());
+    }
+
+}
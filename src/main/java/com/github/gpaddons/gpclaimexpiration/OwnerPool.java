@@ -0,0 +1,93 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * A pool of claim owners awaiting evaluation.
+ *
+ * <p>Owners are stored densely in a {@link UuidSet} so that both sequential and random selection
+ * are constant time. Each owner is removed when selected, guaranteeing that every owner is selected
+ * exactly once per refill. Owners may also be added and removed individually in constant time.
+ */
+class OwnerPool
+{
+
+    private final @NotNull Random random;
+    private final @NotNull UuidSet owners;
+
+    OwnerPool(@NotNull Random random, boolean direct)
+    {
+        this.random = random;
+        this.owners = new UuidSet(0, direct);
+    }
+
+    /**
+     * Replace the content of the pool.
+     *
+     * @param owners the new owners
+     */
+    void refill(@NotNull Collection<UUID> owners)
+    {
+        this.owners.clear(owners.size());
+        for (UUID owner : owners)
+        {
+            this.owners.add(owner);
+        }
+    }
+
+    /**
+     * Add an owner to the pool if not already present.
+     *
+     * @param owner the owner
+     * @return true if the owner was added
+     */
+    boolean add(@NotNull UUID owner)
+    {
+        return owners.add(owner);
+    }
+
+    /**
+     * Remove an owner from the pool.
+     *
+     * @param owner the owner
+     * @return true if the owner was present
+     */
+    boolean remove(@NotNull UUID owner)
+    {
+        return owners.remove(owner);
+    }
+
+    /**
+     * Remove and return the next owner.
+     *
+     * <p>Random selection swaps the chosen owner with the last owner before removal, which is
+     * equivalent to performing a Fisher-Yates shuffle one step at a time.
+     *
+     * @param randomOrder whether to select a random owner
+     * @return the next owner or {@code null} if the pool is empty
+     */
+    @Nullable UUID next(boolean randomOrder)
+    {
+        int size = owners.size();
+
+        if (size == 0) return null;
+
+        return owners.removeAt(randomOrder ? random.nextInt(size) : size - 1);
+    }
+
+    int size()
+    {
+        return owners.size();
+    }
+
+    boolean isEmpty()
+    {
+        return owners.size() == 0;
+    }
+
+}
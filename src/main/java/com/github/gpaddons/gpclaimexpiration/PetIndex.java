@@ -0,0 +1,378 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import org.bukkit.Chunk;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.bukkit.entity.AnimalTamer;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Tameable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityTameEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.PluginManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * An index of loaded tamed entities by owner for abandoning pets in bulk.
+ *
+ * <p>Entities are scanned through the {@link MainThreadQueue} as they load so that indexing shares the
+ * main thread budget. Since Minecraft 1.17, entities load separately from chunks, so entity load
+ * events are used where available and chunk events otherwise.
+ *
+ * <p>Owners are periodically checked off the main thread, and all of an eligible owner's loaded pets
+ * are abandoned in a single queued task. Pets are indexed by UUID so that the index never keeps
+ * unloaded entities alive. The index is only accessed on the main thread.
+ */
+class PetIndex implements Listener
+{
+
+    private final @NotNull GPClaimExpiration plugin;
+    private final @NotNull UnprotectedPetAbandoner abandoner;
+    private final @NotNull MainThreadQueue mainThreadQueue;
+    // Pet UUIDs and the names of the worlds they were indexed in by owner UUID.
+    private final @NotNull Map<UUID, Map<UUID, String>> petsByOwner = new HashMap<>();
+    private final @NotNull Map<UUID, UUID> ownerByPet = new HashMap<>();
+
+    PetIndex(
+            @NotNull GPClaimExpiration plugin,
+            @NotNull UnprotectedPetAbandoner abandoner,
+            @NotNull MainThreadQueue mainThreadQueue)
+    {
+        this.plugin = plugin;
+        this.abandoner = abandoner;
+        this.mainThreadQueue = mainThreadQueue;
+    }
+
+    /**
+     * Register listeners, index already loaded chunks, and schedule sweeps for eligible owners.
+     * Does nothing if sweeping is disabled.
+     */
+    void start()
+    {
+        long period = plugin.getConfig().getLong("expiration.pet.sweep_minutes", 10) * 1200;
+
+        if (period <= 0) return;
+
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+
+        if (!registerEntityEvents())
+            plugin.getServer().getPluginManager().registerEvents(new ChunkEvents(), plugin);
+
+        for (World world : plugin.getServer().getWorlds())
+        {
+            queueScan(new ArrayList<>(world.getEntitiesByClass(Tameable.class)));
+        }
+
+        plugin.getServer().getScheduler().runTaskTimer(plugin, this::sweep, period, period);
+    }
+
+    /**
+     * Register listeners for entities loading and unloading. The events are not present in the API
+     * the plugin is built against, so they are registered reflectively.
+     *
+     * @return true if the events are available
+     */
+    private boolean registerEntityEvents()
+    {
+        Class<? extends Event> loadEvent;
+        Class<? extends Event> unloadEvent;
+        Method getEntities;
+        try
+        {
+            loadEvent = Class.forName("org.bukkit.event.world.EntitiesLoadEvent").asSubclass(Event.class);
+            unloadEvent = Class.forName("org.bukkit.event.world.EntitiesUnloadEvent").asSubclass(Event.class);
+            getEntities = loadEvent.getMethod("getEntities");
+            // Both events declare their own method.
+            Method getUnloadedEntities = unloadEvent.getMethod("getEntities");
+
+            PluginManager pluginManager = plugin.getServer().getPluginManager();
+            pluginManager.registerEvent(loadEvent, this, EventPriority.MONITOR, (listener, event) ->
+            {
+                if (loadEvent.isInstance(event)) queueScan(new ArrayList<>(getEntities(getEntities, event)));
+            }, plugin);
+            pluginManager.registerEvent(unloadEvent, this, EventPriority.MONITOR, (listener, event) ->
+            {
+                if (unloadEvent.isInstance(event)) removeAll(getEntities(getUnloadedEntities, event));
+            }, plugin);
+        }
+        catch (ClassNotFoundException | ClassCastException | NoSuchMethodException e)
+        {
+            return false;
+        }
+
+        return true;
+    }
+
+    private static @NotNull Collection<Entity> getEntities(@NotNull Method getEntities, @NotNull Event event)
+            throws EventException
+    {
+        try
+        {
+            Collection<?> entities = (Collection<?>) getEntities.invoke(event);
+            List<Entity> result = new ArrayList<>(entities.size());
+            for (Object entity : entities)
+            {
+                if (entity instanceof Entity) result.add((Entity) entity);
+            }
+            return result;
+        }
+        catch (IllegalAccessException | InvocationTargetException | ClassCastException e)
+        {
+            throw new EventException(e);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onEntityTame(@NotNull EntityTameEvent event)
+    {
+        // Owner is not set until after the event.
+        if (event.getEntity() instanceof Tameable tameable) add(tameable, event.getOwner().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onEntityDeath(@NotNull EntityDeathEvent event)
+    {
+        if (event.getEntity() instanceof Tameable) remove(event.getEntity().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onWorldUnload(@NotNull WorldUnloadEvent event)
+    {
+        // Unloaded entities are not guaranteed to be reported individually.
+        String world = event.getWorld().getName();
+        ownerByPet.entrySet().removeIf(entry ->
+        {
+            Map<UUID, String> pets = petsByOwner.get(entry.getValue());
+            if (pets == null || !world.equals(pets.get(entry.getKey()))) return false;
+
+            pets.remove(entry.getKey());
+            if (pets.isEmpty()) petsByOwner.remove(entry.getValue());
+            return true;
+        });
+    }
+
+    private void queueScan(@NotNull Chunk chunk)
+    {
+        mainThreadQueue.submit(() ->
+        {
+            // Chunk may have unloaded while waiting.
+            if (!chunk.isLoaded()) return;
+
+            scan(Arrays.asList(chunk.getEntities()));
+        });
+    }
+
+    private void queueScan(@NotNull Collection<? extends Entity> entities)
+    {
+        mainThreadQueue.submit(() -> scan(entities));
+    }
+
+    private void scan(@NotNull Collection<? extends Entity> entities)
+    {
+        for (Entity entity : entities)
+        {
+            // Entities may have unloaded while waiting.
+            if (!(entity instanceof Tameable tameable) || !tameable.isValid()) continue;
+
+            AnimalTamer owner = tameable.getOwner();
+            if (owner != null) add(tameable, owner.getUniqueId());
+        }
+    }
+
+    private void removeAll(@NotNull Collection<? extends Entity> entities)
+    {
+        for (Entity entity : entities)
+        {
+            if (entity instanceof Tameable) remove(entity.getUniqueId());
+        }
+    }
+
+    private void add(@NotNull Tameable tameable, @NotNull UUID owner)
+    {
+        remove(tameable.getUniqueId());
+        ownerByPet.put(tameable.getUniqueId(), owner);
+        petsByOwner.computeIfAbsent(owner, key -> new HashMap<>()).put(tameable.getUniqueId(), tameable.getWorld().getName());
+    }
+
+    private void remove(@NotNull UUID pet)
+    {
+        UUID owner = ownerByPet.remove(pet);
+
+        if (owner == null) return;
+
+        Map<UUID, String> pets = petsByOwner.get(owner);
+        if (pets != null)
+        {
+            pets.remove(pet);
+            if (pets.isEmpty()) petsByOwner.remove(owner);
+        }
+    }
+
+    /**
+     * Check indexed owners off the main thread and queue abandonment of eligible owners' pets.
+     */
+    private void sweep()
+    {
+        // Durations and online status are resolved on the main thread.
+        Map<UUID, Map<String, Integer>> candidates = new HashMap<>();
+        for (Map.Entry<UUID, Map<UUID, String>> entry : petsByOwner.entrySet())
+        {
+            if (plugin.getServer().getPlayer(entry.getKey()) != null) continue;
+
+            Map<String, Integer> worlds = new HashMap<>();
+            for (String world : entry.getValue().values())
+            {
+                int days = plugin.config().getPetProtectionDuration(world);
+                if (days >= 0) worlds.put(world, days);
+            }
+
+            if (!worlds.isEmpty()) candidates.put(entry.getKey(), worlds);
+        }
+
+        if (candidates.isEmpty()) return;
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () ->
+        {
+            Map<UUID, Set<String>> eligible;
+            try
+            {
+                eligible = getEligibleWorlds(candidates);
+            }
+            catch (RuntimeException e)
+            {
+                plugin.getLogger().log(Level.WARNING, "Error checking pet owners", e);
+                return;
+            }
+
+            if (eligible.isEmpty()) return;
+
+            plugin.getServer().getScheduler().runTask(plugin, () ->
+                    eligible.forEach((owner, worlds) -> mainThreadQueue.submit(() -> abandonPets(owner, worlds))));
+        });
+    }
+
+    /**
+     * Find the worlds in which owners are eligible to lose their pets. Looks up last sessions and
+     * exemptions, so this should not be called on the main thread.
+     *
+     * @param candidates the protection duration in days of each world by owner UUID
+     * @return the names of the worlds in which each eligible owner's pets may be abandoned
+     */
+    private @NotNull Map<UUID, Set<String>> getEligibleWorlds(@NotNull Map<UUID, Map<String, Integer>> candidates)
+    {
+        List<UUID> owners = List.copyOf(candidates.keySet());
+        long[] lastSessions = plugin.getLastQualifyingSessions(owners);
+        long now = System.currentTimeMillis();
+
+        Map<UUID, Set<String>> eligible = new HashMap<>();
+        for (int i = 0; i < lastSessions.length; ++i)
+        {
+            UUID ownerId = owners.get(i);
+            OfflinePlayer owner = plugin.getServer().getOfflinePlayer(ownerId);
+
+            for (Map.Entry<String, Integer> world : candidates.get(ownerId).entrySet())
+            {
+                // Ensure owner's last play session was long enough ago and owner is not exempt.
+                if (lastSessions[i] >= now - TimeUnit.MILLISECONDS.convert(world.getValue(), TimeUnit.DAYS)
+                        || plugin.config().isExempt(owner, world.getKey()))
+                    continue;
+
+                eligible.computeIfAbsent(ownerId, key -> new HashSet<>()).add(world.getKey());
+            }
+        }
+
+        return eligible;
+    }
+
+    private void abandonPets(@NotNull UUID ownerId, @NotNull Set<String> worlds)
+    {
+        Map<UUID, String> pets = petsByOwner.get(ownerId);
+
+        // Owner may have logged in since being checked.
+        if (pets == null || plugin.getServer().getPlayer(ownerId) != null) return;
+
+        OfflinePlayer owner = plugin.getServer().getOfflinePlayer(ownerId);
+        List<Map.Entry<UUID, String>> snapshot = new ArrayList<>(pets.entrySet());
+
+        for (Map.Entry<UUID, String> pet : snapshot)
+        {
+            if (!worlds.contains(pet.getValue())) continue;
+
+            if (!(plugin.getServer().getEntity(pet.getKey()) instanceof Tameable tameable))
+            {
+                remove(pet.getKey());
+                continue;
+            }
+
+            String world = tameable.getWorld().getName();
+
+            // Ownership or world may have changed without an event, i.e. by an interaction or a portal.
+            if (!tameable.isValid() || !isOwner(tameable, ownerId) || !world.equals(pet.getValue()))
+            {
+                reindex(tameable);
+                continue;
+            }
+
+            abandoner.abandon(tameable, owner, world, null);
+            reindex(tameable);
+        }
+    }
+
+    private void reindex(@NotNull Tameable tameable)
+    {
+        remove(tameable.getUniqueId());
+
+        if (!tameable.isValid()) return;
+
+        AnimalTamer owner = tameable.getOwner();
+        if (owner != null) add(tameable, owner.getUniqueId());
+    }
+
+    private static boolean isOwner(@NotNull Tameable tameable, @NotNull UUID ownerId)
+    {
+        AnimalTamer owner = tameable.getOwner();
+        return owner != null && ownerId.equals(owner.getUniqueId());
+    }
+
+    /**
+     * Listener for chunk events, used when entities are loaded with chunks.
+     */
+    private class ChunkEvents implements Listener
+    {
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        private void onChunkLoad(@NotNull ChunkLoadEvent event)
+        {
+            queueScan(event.getChunk());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        private void onChunkUnload(@NotNull ChunkUnloadEvent event)
+        {
+            removeAll(Arrays.asList(event.getChunk().getEntities()));
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A persistent checkpoint of evaluation cycle progress.
+ *
+ * <p>The base file contains a header followed by every owner in the cycle as packed 16-byte UUIDs.
+ * Owners are appended to a separate progress log as they are checked, so progress is written
+ * incrementally without rewriting the base. Remaining owners are the base minus the log.
+ *
+ * <p>Changes are buffered in memory until {@link #flush()}.
+ */
+class SweepCheckpoint implements AutoCloseable
+{
+
+    private static final int MAGIC = 0x47504357;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int UUID_BYTES = 16;
+
+    private final @NotNull Path base;
+    private final @NotNull Path log;
+    private final @NotNull Queue<UUID> checked = new ConcurrentLinkedQueue<>();
+    private @Nullable Cycle pendingCycle;
+
+    /**
+     * Create a checkpoint.
+     *
+     * @param base the path of the base file
+     * @param log the path of the progress log
+     */
+    SweepCheckpoint(@NotNull Path base, @NotNull Path log)
+    {
+        this.base = base;
+        this.log = log;
+    }
+
+    /**
+     * Read the saved cycle.
+     *
+     * @return the saved cycle with checked owners removed or null if no valid checkpoint exists
+     * @throws IOException if the checkpoint cannot be read
+     */
+    synchronized @Nullable Cycle load() throws IOException
+    {
+        if (!Files.isRegularFile(base)) return null;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(base));
+
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+
+        long start = buffer.getLong();
+        int count = buffer.getInt();
+
+        if (count < 0 || buffer.remaining() < (long) count * UUID_BYTES) return null;
+
+        Set<UUID> done = new HashSet<>();
+        if (Files.isRegularFile(log))
+        {
+            ByteBuffer logBuffer = ByteBuffer.wrap(Files.readAllBytes(log));
+            // A partial trailing entry is the result of an interrupted write and is ignored.
+            while (logBuffer.remaining() >= UUID_BYTES)
+            {
+                done.add(new UUID(logBuffer.getLong(), logBuffer.getLong()));
+            }
+        }
+
+        List<UUID> remaining = new ArrayList<>(Math.max(0, count - done.size()));
+        for (int i = 0; i < count; ++i)
+        {
+            UUID owner = new UUID(buffer.getLong(), buffer.getLong());
+            if (!done.contains(owner)) remaining.add(owner);
+        }
+
+        return new Cycle(start, count, remaining);
+    }
+
+    /**
+     * Begin a new cycle, discarding progress of the previous cycle. May be called from any thread.
+     *
+     * @param start the start of the cycle in milliseconds since the epoch
+     * @param owners the owners in the cycle
+     */
+    synchronized void startCycle(long start, @NotNull Collection<UUID> owners)
+    {
+        pendingCycle = new Cycle(start, owners.size(), List.copyOf(owners));
+        checked.clear();
+    }
+
+    /**
+     * Record that an owner has been checked. May be called from any thread.
+     *
+     * @param owner the owner
+     */
+    void checked(@NotNull UUID owner)
+    {
+        checked.add(owner);
+    }
+
+    /**
+     * Write buffered changes to disk. A new cycle discards the progress log and replaces the base
+     * file, checked owners are appended to the progress log.
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    synchronized void flush() throws IOException
+    {
+        if (pendingCycle != null)
+        {
+            // Discard the old progress first so that it can never be applied to the new cycle.
+            // If interrupted before the base is replaced, the previous cycle is merely repeated.
+            Files.deleteIfExists(log);
+            writeBase(pendingCycle);
+            pendingCycle = null;
+        }
+
+        if (checked.isEmpty()) return;
+
+        ByteBuffer buffer = ByteBuffer.allocate(UUID_BYTES * 256);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND))
+        {
+            UUID owner;
+            while ((owner = checked.poll()) != null)
+            {
+                buffer.putLong(owner.getMostSignificantBits()).putLong(owner.getLeastSignificantBits());
+
+                if (!buffer.hasRemaining()) write(channel, buffer);
+            }
+
+            write(channel, buffer);
+        }
+    }
+
+    private void writeBase(@NotNull Cycle cycle) throws IOException
+    {
+        Files.createDirectories(base.getParent());
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + cycle.owners().size() * UUID_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(cycle.start()).putInt(cycle.owners().size());
+        for (UUID owner : cycle.owners())
+        {
+            buffer.putLong(owner.getMostSignificantBits()).putLong(owner.getLeastSignificantBits());
+        }
+        buffer.flip();
+
+        // Replace atomically so that an interrupted write does not lose the previous checkpoint.
+        Path temp = base.resolveSibling(base.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        Files.move(temp, base, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(@NotNull FileChannel channel, @NotNull ByteBuffer buffer) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        flush();
+    }
+
+    /**
+     * A saved evaluation cycle.
+     *
+     * @param start the start of the cycle in milliseconds since the epoch
+     * @param size the number of owners at the start of the cycle
+     * @param owners the owners remaining in the cycle
+     */
+    record Cycle(long start, int size, @NotNull List<UUID> owners) {}
+
+}
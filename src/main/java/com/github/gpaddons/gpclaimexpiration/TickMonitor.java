@@ -0,0 +1,98 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monitor for server tick health.
+ *
+ * <p>If available, Paper's average tick time is used. Otherwise, only the interval between ticks can
+ * be measured, which reveals when ticks run long but not how much spare time a healthy tick has.
+ */
+class TickMonitor implements Runnable
+{
+
+    static final double TICK_MILLIS = 50;
+    private static final double SMOOTHING = 0.05;
+    private static final double NANOS_PER_MILLI = TimeUnit.NANOSECONDS.convert(1, TimeUnit.MILLISECONDS);
+
+    private final @NotNull Plugin plugin;
+    private final @Nullable Method averageTickTime;
+    private long lastTick = 0;
+    private volatile double averageInterval = TICK_MILLIS;
+
+    TickMonitor(@NotNull Plugin plugin)
+    {
+        this.plugin = plugin;
+
+        Method method;
+        try
+        {
+            method = Server.class.getMethod("getAverageTickTime");
+        }
+        catch (NoSuchMethodException e)
+        {
+            method = null;
+        }
+        this.averageTickTime = method;
+    }
+
+    /**
+     * Begin sampling tick intervals.
+     */
+    void start()
+    {
+        plugin.getServer().getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+    }
+
+    @Override
+    public void run()
+    {
+        long now = System.nanoTime();
+
+        if (lastTick != 0)
+        {
+            double interval = (now - lastTick) / NANOS_PER_MILLI;
+            averageInterval = averageInterval * (1 - SMOOTHING) + interval * SMOOTHING;
+        }
+
+        lastTick = now;
+    }
+
+    /**
+     * Get the average time spent processing a tick in milliseconds.
+     *
+     * @return the average tick time or {@link Double#NaN} if unavailable
+     */
+    double getAverageTickTime()
+    {
+        if (averageTickTime == null) return Double.NaN;
+
+        try
+        {
+            return ((Number) averageTickTime.invoke(plugin.getServer())).doubleValue();
+        }
+        catch (IllegalAccessException | InvocationTargetException | ClassCastException e)
+        {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Get the smoothed interval between ticks in milliseconds. This is never meaningfully less than
+     * {@link #TICK_MILLIS} because the server sleeps between ticks when ahead of schedule.
+     *
+     * @return the average interval between ticks
+     */
+    double getAverageInterval()
+    {
+        return averageInterval;
+    }
+
+}
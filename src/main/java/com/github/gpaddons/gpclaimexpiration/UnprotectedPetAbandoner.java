@@ -20,9 +20,13 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -31,13 +35,26 @@ import java.util.concurrent.TimeUnit;
 class UnprotectedPetAbandoner implements Listener
 {
 
+    private static final long PRUNE_INTERVAL = TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES);
+
     private final @NotNull GPClaimExpiration plugin;
+    // Decisions and the reused location are only accessed on the main thread.
+    private final @NotNull Map<UUID, Map<String, Decision>> decisions = new HashMap<>();
+    private final @NotNull Location location = new Location(null, 0, 0, 0);
+    private long nextPrune = 0;
 
     UnprotectedPetAbandoner(@NotNull GPClaimExpiration plugin)
     {
         this.plugin = plugin;
     }
 
+    @EventHandler
+    private void onPlayerJoin(@NotNull PlayerJoinEvent event)
+    {
+        // Owner is active again, their pets are no longer eligible.
+        decisions.remove(event.getPlayer().getUniqueId());
+    }
+
     @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
     private void onPlayerInteractEntity(@NotNull EntityDamageEvent event)
     {
@@ -82,7 +99,25 @@ class UnprotectedPetAbandoner implements Listener
         // Ensure pet is tamed.
         if (!(animalTamer instanceof OfflinePlayer owner)) return;
 
-        Claim claim = getClaim(tameable.getLocation(), actor);
+        // Ensure pet owner is eligible to lose ownership of pets.
+        if (!isOwnerEligible(owner, world, days)) return;
+
+        abandon(tameable, owner, world, actor);
+    }
+
+    /**
+     * Abandon a pet of an eligible owner. If the pet is in a claim the owner does not have access to,
+     * it is transferred to the claim owner instead.
+     *
+     * @param tameable the pet
+     * @param owner the pet owner
+     * @param world the name of the world
+     * @param actor the player interacting with the pet, if any
+     */
+    void abandon(@NotNull Tameable tameable, @NotNull OfflinePlayer owner, @NotNull String world, @Nullable Player actor)
+    {
+        Location location = tameable.getLocation(this.location);
+        Claim claim = getClaim(location, actor);
 
         // Treat admin claims as unclaimed area - no owner to transfer to.
         if (claim != null && claim.isAdminClaim()) claim = null;
@@ -90,19 +125,13 @@ class UnprotectedPetAbandoner implements Listener
         // Ensure the pet is unclaimed or claimed by someone who does not have access to the claim it is in.
         if (claim != null && claim.getPermission(owner.getUniqueId().toString()) != null) return;
 
-        // Ensure pet owner is not exempt from expiration.
-        if (plugin.config().isExempt(owner, world)) return;
-
-        // Ensure pet owner's last play session was long enough ago to expire pet ownership.
-        if (plugin.getLastQualifyingSession(owner) >= System.currentTimeMillis() - TimeUnit.MILLISECONDS.convert(days, TimeUnit.DAYS)) return;
-
         // If the pet is in a claim, transfer it to the claim owner instead of untaming.
         if (claim != null)
         {
             OfflinePlayer claimOwner = plugin.getServer().getOfflinePlayer(claim.getOwnerID());
             GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Transferred abandoned %s from %s to %s at %s %s, %s, %s",
-                    tameable.getType().name(), owner.getUniqueId(), claimOwner.getUniqueId(), tameable.getWorld().getName(),
-                    tameable.getLocation().getBlockX(), tameable.getLocation().getBlockY(), tameable.getLocation().getBlockZ()),
+                    tameable.getType().name(), owner.getUniqueId(), claimOwner.getUniqueId(), world,
+                    location.getBlockX(), location.getBlockY(), location.getBlockZ()),
                     CustomLogEntryTypes.Debug, true);
             tameable.setOwner(claimOwner);
             return;
@@ -112,8 +141,8 @@ class UnprotectedPetAbandoner implements Listener
         tameable.setOwner(null);
 
         GriefPrevention.AddLogEntry(String.format("[GPClaimExpiration] Abandoned %s of %s at %s %s, %s, %s",
-                tameable.getType().name(), owner.getUniqueId(), tameable.getWorld().getName(),
-                tameable.getLocation().getBlockX(), tameable.getLocation().getBlockY(), tameable.getLocation().getBlockZ()),
+                tameable.getType().name(), owner.getUniqueId(), world,
+                location.getBlockX(), location.getBlockY(), location.getBlockZ()),
                 CustomLogEntryTypes.Debug, true);
 
         // Make untamed sittables stand.
@@ -134,12 +163,60 @@ class UnprotectedPetAbandoner implements Listener
 
         // Run pet abandonment commands.
         for (String command : plugin.config().getPetCommandList(world,
-                new OwnerReplacement(owner), new LocationReplacement(tameable.getLocation())))
+                new OwnerReplacement(owner), new LocationReplacement(location.clone())))
         {
             plugin.getServer().dispatchCommand(plugin.getServer().getConsoleSender(), command);
         }
     }
 
+    /**
+     * Check whether an owner has been inactive long enough to lose ownership of pets in a world.
+     * Decisions are cached briefly because pets are interacted with far more often than they change.
+     *
+     * @param owner the pet owner
+     * @param world the name of the world
+     * @param days the number of days of inactivity required
+     * @return true if the owner's pets may be abandoned
+     */
+    boolean isOwnerEligible(@NotNull OfflinePlayer owner, @NotNull String world, int days)
+    {
+        long now = System.currentTimeMillis();
+        pruneDecisions(now);
+
+        Map<String, Decision> worlds = decisions.computeIfAbsent(owner.getUniqueId(), uuid -> new HashMap<>());
+        Decision decision = worlds.get(world);
+
+        if (decision != null && decision.expiry() > now) return decision.eligible();
+
+        // Ensure pet owner is not exempt and their last play session was long enough ago to expire pet ownership.
+        boolean eligible = !plugin.config().isExempt(owner, world)
+                && plugin.getLastQualifyingSession(owner) < now - TimeUnit.MILLISECONDS.convert(days, TimeUnit.DAYS);
+
+        long ttl = TimeUnit.MILLISECONDS.convert(
+                Math.max(0, plugin.getConfig().getInt("expiration.pet.cache_seconds", 60)), TimeUnit.SECONDS);
+        if (ttl > 0) worlds.put(world, new Decision(eligible, now + ttl));
+        else if (worlds.isEmpty()) decisions.remove(owner.getUniqueId());
+
+        return eligible;
+    }
+
+    /**
+     * Periodically discard expired decisions so that owners who are never seen again are forgotten.
+     *
+     * @param now the current time
+     */
+    private void pruneDecisions(long now)
+    {
+        if (now < nextPrune) return;
+
+        nextPrune = now + PRUNE_INTERVAL;
+        decisions.values().removeIf(worlds ->
+        {
+            worlds.values().removeIf(decision -> decision.expiry() <= now);
+            return worlds.isEmpty();
+        });
+    }
+
     private static @Nullable Claim getClaim(@NotNull Location location, @Nullable Player player)
     {
         // No player, no claim caching.
@@ -154,4 +231,12 @@ class UnprotectedPetAbandoner implements Listener
         return claim;
     }
 
+    /**
+     * A cached decision on whether an owner's pets may be abandoned.
+     *
+     * @param eligible whether the owner is eligible
+     * @param expiry the time after which the decision must be recalculated
+     */
+    private record Decision(boolean eligible, long expiry) {}
+
 }
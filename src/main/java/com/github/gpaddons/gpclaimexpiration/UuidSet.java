@@ -0,0 +1,255 @@
+package com.github.gpaddons.gpclaimexpiration;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.UUID;
+
+/**
+ * A set of UUIDs stored as packed pairs of longs.
+ *
+ * <p>Members are stored densely in insertion order, subject to removal, so that members can be
+ * accessed by index for constant time random sampling. An open addressing table with linear probing
+ * maps each UUID to its dense index. Removal swaps the last member into the vacated index and uses
+ * backward shift deletion in the table, so no tombstones accumulate.
+ *
+ * <p>Storage may optionally be allocated outside the heap. Not thread safe.
+ */
+final class UuidSet
+{
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final boolean direct;
+    private LongBuffer members;
+    private IntBuffer slots;
+    private int mask;
+    private int size;
+
+    /**
+     * Create a set.
+     *
+     * @param expected the expected number of members
+     * @param direct whether to allocate storage outside the heap
+     */
+    UuidSet(int expected, boolean direct)
+    {
+        this.direct = direct;
+        allocate(Math.max(MIN_CAPACITY, expected));
+    }
+
+    /**
+     * Remove all members, retaining allocated storage if it can hold the expected number of members.
+     *
+     * @param expected the expected number of members
+     */
+    void clear(int expected)
+    {
+        size = 0;
+
+        if (expected > members.capacity() / 2)
+        {
+            allocate(expected);
+            return;
+        }
+
+        for (int i = 0; i < slots.capacity(); ++i)
+        {
+            slots.put(i, 0);
+        }
+    }
+
+    /**
+     * Add a UUID.
+     *
+     * @param uuid the UUID
+     * @return true if the UUID was not already a member
+     */
+    boolean add(@NotNull UUID uuid)
+    {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int slot = findSlot(msb, lsb);
+
+        if (slot >= 0) return false;
+
+        if (size == members.capacity() / 2)
+        {
+            grow();
+            slot = findSlot(msb, lsb);
+        }
+
+        members.put(size * 2, msb);
+        members.put(size * 2 + 1, lsb);
+        slots.put(-slot - 1, ++size);
+        return true;
+    }
+
+    /**
+     * Remove a UUID.
+     *
+     * @param uuid the UUID
+     * @return true if the UUID was a member
+     */
+    boolean remove(@NotNull UUID uuid)
+    {
+        int slot = findSlot(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+
+        if (slot < 0) return false;
+
+        removeAt(slots.get(slot) - 1, slot);
+        return true;
+    }
+
+    /**
+     * Check whether a UUID is a member.
+     *
+     * @param uuid the UUID
+     * @return true if the UUID is a member
+     */
+    boolean contains(@NotNull UUID uuid)
+    {
+        return findSlot(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * Remove and return the member at an index. The last member takes its place.
+     *
+     * @param index the index
+     * @return the removed member
+     */
+    @NotNull UUID removeAt(int index)
+    {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+
+        long msb = members.get(index * 2);
+        long lsb = members.get(index * 2 + 1);
+        removeAt(index, findSlot(msb, lsb));
+        return new UUID(msb, lsb);
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    private void removeAt(int index, int slot)
+    {
+        deleteSlot(slot);
+
+        int last = size - 1;
+        if (index != last)
+        {
+            // Move last member into the vacated index and point its slot at the new index.
+            long msb = members.get(last * 2);
+            long lsb = members.get(last * 2 + 1);
+            members.put(index * 2, msb);
+            members.put(index * 2 + 1, lsb);
+            slots.put(findSlot(msb, lsb), index + 1);
+        }
+
+        size = last;
+    }
+
+    /**
+     * Find the slot containing a UUID.
+     *
+     * @return the slot or, if absent, {@code -slot - 1} of the empty slot where it would be inserted
+     */
+    private int findSlot(long msb, long lsb)
+    {
+        int slot = hash(msb, lsb) & mask;
+
+        while (true)
+        {
+            int value = slots.get(slot);
+
+            if (value == 0) return -slot - 1;
+
+            int index = (value - 1) * 2;
+            if (members.get(index) == msb && members.get(index + 1) == lsb) return slot;
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void deleteSlot(int slot)
+    {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+
+        while (true)
+        {
+            int value = slots.get(next);
+
+            if (value == 0) break;
+
+            int index = (value - 1) * 2;
+            int ideal = hash(members.get(index), members.get(index + 1)) & mask;
+
+            // Shift back entries whose ideal slot is not between the gap and their current slot.
+            if (((next - ideal) & mask) >= ((next - gap) & mask))
+            {
+                slots.put(gap, value);
+                gap = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        slots.put(gap, 0);
+    }
+
+    private void grow()
+    {
+        LongBuffer oldMembers = members;
+        int count = size;
+
+        allocate(members.capacity());
+
+        for (int i = 0; i < count; ++i)
+        {
+            long msb = oldMembers.get(i * 2);
+            long lsb = oldMembers.get(i * 2 + 1);
+            members.put(i * 2, msb);
+            members.put(i * 2 + 1, lsb);
+            slots.put(-findSlot(msb, lsb) - 1, i + 1);
+        }
+
+        size = count;
+    }
+
+    /**
+     * Allocate storage for a number of members. Slots are kept at most half full.
+     */
+    private void allocate(int capacity)
+    {
+        int slotCount = Integer.highestOneBit(Math.max(MIN_CAPACITY, capacity) * 2 - 1) << 1;
+        members = longs(slotCount);
+        slots = ints(slotCount);
+        mask = slotCount - 1;
+        size = 0;
+    }
+
+    private @NotNull LongBuffer longs(int count)
+    {
+        if (!direct) return LongBuffer.allocate(count);
+        return ByteBuffer.allocateDirect(count * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    private @NotNull IntBuffer ints(int count)
+    {
+        if (!direct) return IntBuffer.allocate(count);
+        return ByteBuffer.allocateDirect(count * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static int hash(long msb, long lsb)
+    {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+}
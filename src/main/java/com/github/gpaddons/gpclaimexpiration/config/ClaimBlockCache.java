@@ -0,0 +1,98 @@
+package com.github.gpaddons.gpclaimexpiration.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A least recently used cache of owners' accrued and bonus claim blocks.
+ *
+ * <p>Both values are packed into a single long so that reads do not require GriefPrevention's
+ * player data, which may need to be loaded from disk.
+ */
+class ClaimBlockCache
+{
+
+    /** Value returned when an owner is not cached. Not a valid packed value, accrued blocks are never negative. */
+    static final long MISSING = Long.MIN_VALUE;
+
+    private final Map<UUID, Long> entries;
+
+    ClaimBlockCache(int capacity)
+    {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Long> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get an owner's packed claim blocks.
+     *
+     * @param uuid the UUID of the owner
+     * @return the packed claim blocks or {@link #MISSING} if not cached
+     */
+    synchronized long get(@NotNull UUID uuid)
+    {
+        Long value = entries.get(uuid);
+        return value == null ? MISSING : value;
+    }
+
+    /**
+     * Check whether an owner is cached without affecting recency.
+     *
+     * @param uuid the UUID of the owner
+     * @return true if the owner is cached
+     */
+    synchronized boolean contains(@NotNull UUID uuid)
+    {
+        return entries.containsKey(uuid);
+    }
+
+    /**
+     * Cache an owner's claim blocks.
+     *
+     * @param uuid the UUID of the owner
+     * @param accrued the accrued claim blocks
+     * @param bonus the bonus claim blocks
+     * @return the packed claim blocks
+     */
+    synchronized long put(@NotNull UUID uuid, int accrued, int bonus)
+    {
+        long packed = pack(accrued, bonus);
+        entries.put(uuid, packed);
+        return packed;
+    }
+
+    synchronized void invalidate(@NotNull UUID uuid)
+    {
+        entries.remove(uuid);
+    }
+
+    synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    static long pack(int accrued, int bonus)
+    {
+        return ((long) accrued << 32) | (bonus & 0xFFFFFFFFL);
+    }
+
+    static int accrued(long packed)
+    {
+        return (int) (packed >> 32);
+    }
+
+    static int bonus(long packed)
+    {
+        return (int) packed;
+    }
+
+}
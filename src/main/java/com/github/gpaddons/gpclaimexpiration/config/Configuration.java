@@ -2,6 +2,7 @@ package com.github.gpaddons.gpclaimexpiration.config;
 
 import com.github.gpaddons.gpclaimexpiration.GPClaimExpiration;
 import com.github.gpaddons.util.lang.MessageReplacement;
+import com.github.gpaddons.util.lang.MessageTemplate;
 import com.github.jikoo.planarwrappers.config.Setting;
 import com.github.jikoo.planarwrappers.config.SimpleSetSetting;
 import com.github.jikoo.planarwrappers.config.impl.IntSetting;
@@ -13,30 +14,39 @@ import org.bukkit.World;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
-import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
 
 public class Configuration
 {
 
     private final GPClaimExpiration plugin;
     private final Setting<NavigableMap<Integer, Long>> areaProtectionDuration;
+    private volatile DurationTables durationTables;
     private final Setting<Integer> exemptionClaimBlocks;
     private final Setting<Integer> exemptionBonusClaimBlocks;
     private final Setting<Set<String>> exemptionPermissions;
+    private final ExemptionCache exemptionCache = new ExemptionCache();
+    private final ClaimBlockCache claimBlockCache;
     private final Setting<List<String>> claimExpirationCommands;
     private final Setting<Integer> petProtectionDuration;
     private final Setting<List<String>> petExpirationCommands;
+    private final Map<String, List<MessageTemplate>> claimCommandTemplates = new ConcurrentHashMap<>();
+    private final Map<String, List<MessageTemplate>> petCommandTemplates = new ConcurrentHashMap<>();
 
     public Configuration(GPClaimExpiration plugin)
     {
         this.plugin = plugin;
+        this.claimBlockCache = new ClaimBlockCache(Math.max(1, plugin.getConfig().getInt("expiration.bypass.player_data_cache_size", 1024)));
 
 
         TreeMap<Integer, Long> defaults = new TreeMap<>();
@@ -93,6 +103,15 @@ public class Configuration
 
         petProtectionDuration = new IntSetting(plugin.getConfig(), "expiration.pet.days", 60);
         petExpirationCommands = new StringListSetting(plugin.getConfig(), "expiration.pet.commands", List.of());
+
+        compileDurations();
+
+        // Compile commands for loaded worlds. Worlds loaded later are compiled on first use.
+        for (World world : plugin.getServer().getWorlds())
+        {
+            getCommandTemplates(claimExpirationCommands, claimCommandTemplates, world.getName());
+            getCommandTemplates(petExpirationCommands, petCommandTemplates, world.getName());
+        }
     }
 
     /**
@@ -105,6 +124,42 @@ public class Configuration
         return areaProtectionDuration;
     }
 
+    /**
+     * Compile protection durations for all loaded worlds. The new tables replace the old ones atomically.
+     */
+    public void compileDurations()
+    {
+        Map<String, DurationTable> worlds = new HashMap<>();
+        long shortest = Long.MAX_VALUE;
+
+        for (World world : plugin.getServer().getWorlds())
+        {
+            DurationTable table = DurationTable.of(areaProtectionDuration.get(world.getName()));
+            worlds.put(world.getName(), table);
+            shortest = Math.min(shortest, table.getShortest());
+        }
+
+        durationTables = new DurationTables(Map.copyOf(worlds), new ConcurrentHashMap<>(), shortest);
+    }
+
+    /**
+     * Get the compiled protection durations for a world.
+     *
+     * @param worldName the name of the world
+     * @return the protection durations
+     */
+    public @NotNull DurationTable getDurationTable(@NotNull String worldName)
+    {
+        DurationTables tables = durationTables;
+        DurationTable table = tables.worlds().get(worldName);
+
+        // Worlds loaded after compilation are compiled on first use until the next compilation.
+        if (table == null)
+            return tables.uncompiled().computeIfAbsent(worldName, name -> DurationTable.of(areaProtectionDuration.get(name)));
+
+        return table;
+    }
+
     /**
      * Get the shortest expiration time across all claim areas or {@link Long#MAX_VALUE} if no times are configured.
      *
@@ -112,14 +167,24 @@ public class Configuration
      */
     public long getShortestClaimExpiration()
     {
-        Optional<Long> shortestExpirationTime = plugin.getServer().getWorlds().stream()
-                .map(world -> areaProtectionDuration.get(world.getName()))
-                .flatMap(map -> map.values().stream())
-                .sorted()
-                .filter(value -> value > 0)
-                .findFirst();
+        return durationTables.shortest();
+    }
 
-        return shortestExpirationTime.orElse(Long.MAX_VALUE);
+    /**
+     * Get the shortest expiration time across all claim areas in the given worlds or {@link Long#MAX_VALUE}
+     * if no times are configured.
+     *
+     * @param worldNames the names of the worlds
+     * @return the shortest claim expiration
+     */
+    public long getShortestClaimExpiration(@NotNull Collection<String> worldNames)
+    {
+        long shortest = Long.MAX_VALUE;
+        for (String worldName : worldNames)
+        {
+            shortest = Math.min(shortest, getDurationTable(worldName).getShortest());
+        }
+        return shortest;
     }
 
     /**
@@ -135,9 +200,7 @@ public class Configuration
         // Shouldn't be possible, but we'll leave malformed claims for GP to handle.
         if (world == null) return Long.MAX_VALUE;
 
-        final Map.Entry<Integer, Long> areaProtection = areaProtectionDuration.get(world.getName()).floorEntry(claim.getArea());
-
-        return areaProtection != null ? areaProtection.getValue() : Long.MAX_VALUE;
+        return getDurationTable(world.getName()).get(claim.getArea());
     }
 
     /**
@@ -151,45 +214,138 @@ public class Configuration
     {
         if (player.isOnline()) return true;
 
-        PlayerData playerData = GriefPrevention.instance.dataStore.getPlayerData(player.getUniqueId());
+        Boolean cached = exemptionCache.get(player.getUniqueId(), worldName);
+        if (cached != null) return cached;
+
+        boolean exempt = checkExempt(player, worldName);
+        exemptionCache.put(player.getUniqueId(), worldName, exempt, getExemptionCacheDuration());
+        return exempt;
+    }
+
+    /**
+     * Check whether a player is exempt from claim expiration using only online status and cached
+     * results. Unlike {@link #isExempt(OfflinePlayer, String)}, this never performs permission lookups.
+     *
+     * @param uuid the UUID of the player
+     * @param worldName the name of the world
+     * @return whether the player is exempt or null if not known
+     */
+    public @Nullable Boolean getCachedExemption(@NotNull UUID uuid, @NotNull String worldName)
+    {
+        if (plugin.getServer().getPlayer(uuid) != null) return true;
+
+        return exemptionCache.get(uuid, worldName);
+    }
+
+    /**
+     * Discard cached exemption results for a player.
+     *
+     * @param uuid the UUID of the player
+     */
+    public void invalidateExemption(@NotNull UUID uuid)
+    {
+        exemptionCache.invalidate(uuid);
+        claimBlockCache.invalidate(uuid);
+    }
+
+    /**
+     * Discard all cached exemption results.
+     */
+    public void clearExemptions()
+    {
+        exemptionCache.clear();
+        claimBlockCache.clear();
+    }
 
-        if (exceedsInt(exemptionClaimBlocks.get(worldName), playerData::getAccruedClaimBlocks)) return true;
+    /**
+     * Load and cache the claim blocks of players whose exemptions are about to be checked. Loading
+     * player data may read from disk, so this should be called off of the main thread.
+     *
+     * @param uuids the UUIDs of the players
+     */
+    public void prefetchClaimBlocks(@NotNull Collection<UUID> uuids)
+    {
+        for (UUID uuid : uuids)
+        {
+            if (!claimBlockCache.contains(uuid)) loadClaimBlocks(uuid);
+        }
+    }
+
+    private long getClaimBlocks(@NotNull UUID uuid)
+    {
+        long claimBlocks = claimBlockCache.get(uuid);
 
-        if (exceedsInt(exemptionBonusClaimBlocks.get(worldName), playerData::getBonusClaimBlocks)) return true;
+        // Fall through to loading player data if not prefetched.
+        if (claimBlocks == ClaimBlockCache.MISSING) claimBlocks = loadClaimBlocks(uuid);
+
+        return claimBlocks;
+    }
+
+    private long loadClaimBlocks(@NotNull UUID uuid)
+    {
+        PlayerData playerData = GriefPrevention.instance.dataStore.getPlayerData(uuid);
+        return claimBlockCache.put(uuid, playerData.getAccruedClaimBlocks(), playerData.getBonusClaimBlocks());
+    }
+
+    private long getExemptionCacheDuration()
+    {
+        int minutes = plugin.getConfig().getInt("expiration.bypass.cache_minutes", 60);
+        return TimeUnit.MILLISECONDS.convert(Math.max(0, minutes), TimeUnit.MINUTES);
+    }
+
+    private boolean checkExempt(@NotNull OfflinePlayer player, @NotNull String worldName)
+    {
+        long claimBlocks = getClaimBlocks(player.getUniqueId());
+
+        if (exceeds(exemptionClaimBlocks.get(worldName), ClaimBlockCache.accrued(claimBlocks))) return true;
+
+        if (exceeds(exemptionBonusClaimBlocks.get(worldName), ClaimBlockCache.bonus(claimBlocks))) return true;
 
       return exemptionPermissions.get(worldName).stream()
                 .anyMatch(permission -> plugin.getPermissionBridge().hasPermission(player, permission, worldName));
     }
 
-    private boolean exceedsInt(int configValue, @NotNull Supplier<Integer> integerSupplier)
+    private boolean exceeds(int configValue, int value)
     {
         if (configValue < 0) return false;
 
-        return configValue <= integerSupplier.get();
+        return configValue <= value;
     }
 
     public @NotNull List<String> getClaimCommandList(
             @NotNull String worldName,
             MessageReplacement @NotNull ... replacements)
     {
-        return getCommandList(claimExpirationCommands, worldName, replacements);
+        List<MessageTemplate> templates = getCommandTemplates(claimExpirationCommands, claimCommandTemplates, worldName);
+        return getCommandList(templates, replacements);
     }
 
     protected @NotNull List<String> getCommandList(
-            @NotNull Setting<List<String>> commands,
-            @NotNull String worldName,
+            @NotNull List<MessageTemplate> templates,
             MessageReplacement @NotNull ... replacements)
     {
-        List<String> list = commands.get(worldName);
+        if (templates.isEmpty()) return List.of();
 
-        if (list.isEmpty()) return list;
+        // Reuse a single builder for all commands.
+        StringBuilder builder = new StringBuilder();
+        List<String> commands = new ArrayList<>(templates.size());
+        for (MessageTemplate template : templates)
+        {
+            builder.setLength(0);
+            template.render(builder, replacements);
+            commands.add(builder.toString());
+        }
 
-        return list.stream().map(command -> {
-            for (MessageReplacement replacement : replacements) {
-                command = replacement.replace(command);
-            }
-            return command;
-        }).toList();
+        return commands;
+    }
+
+    private @NotNull List<MessageTemplate> getCommandTemplates(
+            @NotNull Setting<List<String>> commands,
+            @NotNull Map<String, List<MessageTemplate>> templates,
+            @NotNull String worldName)
+    {
+        return templates.computeIfAbsent(worldName,
+                key -> commands.get(key).stream().map(MessageTemplate::compile).toList());
     }
 
     /**
@@ -206,7 +362,13 @@ public class Configuration
             @NotNull String worldName,
             MessageReplacement @NotNull ... replacements)
     {
-        return getCommandList(petExpirationCommands, worldName, replacements);
+        List<MessageTemplate> templates = getCommandTemplates(petExpirationCommands, petCommandTemplates, worldName);
+        return getCommandList(templates, replacements);
     }
 
+    private record DurationTables(
+            @NotNull Map<String, DurationTable> worlds,
+            @NotNull Map<String, DurationTable> uncompiled,
+            long shortest) {}
+
 }
@@ -0,0 +1,80 @@
+package com.github.gpaddons.gpclaimexpiration.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * An immutable lookup table of protection durations by minimum claim area.
+ */
+public final class DurationTable
+{
+
+    private final int @NotNull [] areas;
+    private final long @NotNull [] durations;
+    private final long shortest;
+
+    private DurationTable(int @NotNull [] areas, long @NotNull [] durations)
+    {
+        this.areas = areas;
+        this.durations = durations;
+
+        long min = Long.MAX_VALUE;
+        for (long duration : durations)
+        {
+            if (duration > 0 && duration < min) min = duration;
+        }
+        this.shortest = min;
+    }
+
+    /**
+     * Compile a table from a map of minimum areas to durations.
+     *
+     * @param map the map of areas to durations
+     * @return the compiled table
+     */
+    static @NotNull DurationTable of(@NotNull NavigableMap<Integer, Long> map)
+    {
+        int[] areas = new int[map.size()];
+        long[] durations = new long[map.size()];
+
+        int index = 0;
+        for (Map.Entry<Integer, Long> entry : map.entrySet())
+        {
+            areas[index] = entry.getKey();
+            durations[index] = entry.getValue();
+            ++index;
+        }
+
+        return new DurationTable(areas, durations);
+    }
+
+    /**
+     * Get the duration for the closest configured area equal to or less than the specified area.
+     *
+     * @param area the claim area
+     * @return the duration in milliseconds or {@link Long#MAX_VALUE} if no duration applies
+     */
+    public long get(int area)
+    {
+        int index = Arrays.binarySearch(areas, area);
+
+        // Convert insertion point to index of the next lowest area.
+        if (index < 0) index = -index - 2;
+
+        return index >= 0 ? durations[index] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Get the shortest positive duration in the table.
+     *
+     * @return the shortest duration in milliseconds or {@link Long#MAX_VALUE} if none are configured
+     */
+    public long getShortest()
+    {
+        return shortest;
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.github.gpaddons.gpclaimexpiration.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of exemption results by owner and world.
+ */
+class ExemptionCache
+{
+
+    private final Map<UUID, Map<String, Entry>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Get a cached exemption result.
+     *
+     * @param uuid the UUID of the owner
+     * @param worldName the name of the world
+     * @return the cached result or {@code null} if not cached or expired
+     */
+    @Nullable Boolean get(@NotNull UUID uuid, @NotNull String worldName)
+    {
+        Map<String, Entry> worlds = entries.get(uuid);
+
+        if (worlds == null) return null;
+
+        Entry entry = worlds.get(worldName);
+
+        if (entry == null) return null;
+
+        if (entry.expiry() < System.currentTimeMillis())
+        {
+            worlds.remove(worldName, entry);
+            return null;
+        }
+
+        return entry.exempt();
+    }
+
+    /**
+     * Cache an exemption result.
+     *
+     * @param uuid the UUID of the owner
+     * @param worldName the name of the world
+     * @param exempt whether the owner is exempt
+     * @param ttl the number of milliseconds the result is valid for
+     */
+    void put(@NotNull UUID uuid, @NotNull String worldName, boolean exempt, long ttl)
+    {
+        if (ttl <= 0) return;
+
+        entries.computeIfAbsent(uuid, key -> new ConcurrentHashMap<>())
+                .put(worldName, new Entry(exempt, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Discard all cached results for an owner.
+     *
+     * @param uuid the UUID of the owner
+     */
+    void invalidate(@NotNull UUID uuid)
+    {
+        entries.remove(uuid);
+    }
+
+    /**
+     * Discard all cached results.
+     */
+    void clear()
+    {
+        entries.clear();
+    }
+
+    private record Entry(boolean exempt, long expiry) {}
+
+}
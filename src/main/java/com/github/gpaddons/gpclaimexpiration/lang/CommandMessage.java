@@ -0,0 +1,50 @@
+package com.github.gpaddons.gpclaimexpiration.lang;
+
+import com.github.gpaddons.util.lang.ComponentMessage;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Enum containing command feedback messages.
+ *
+ * <p>Command feedback always has a default so that administrators updating from older versions
+ * still receive responses.
+ */
+public enum CommandMessage implements ComponentMessage
+{
+
+    USAGE("command.usage", "Usage: /$label <forecast [days]|stats>"),
+    INVALID_NUMBER("command.invalid_number", "$value is not a valid number."),
+    FORECAST_STARTED("command.forecast.started", "Forecasting expiration for $claims claims..."),
+    FORECAST_COMPLETED("command.forecast.completed", "$expiring claims ($area blocks) would expire now. Report written to $file."),
+    FORECAST_FAILED("command.forecast.failed", "Forecast failed, see console for details."),
+    FORECAST_RUNNING("command.forecast.running", "A forecast is already running."),
+    STATS_EVALUATION("command.stats.evaluation",
+            "Owners checked: $owners, claims evaluated: $claims, exempt: $exempt, expired: $expired, cancelled: $cancelled"),
+    STATS_POOL("command.stats.pool", "Owners remaining in cycle: $remaining, queued deletions: $queued, rate multiplier: $rate"),
+    STATS_BATCH("command.stats.batch", "Batch size: $size, batches run: $count, average batch: $average"),
+    STATS_SYNC_WAIT("command.stats.sync_wait", "Main thread wait: mean $mean ms, p99 $p99 ms, max $max ms ($count samples)"),
+    STATS_DELETION("command.stats.deletion", "Deletion: mean $mean ms, p99 $p99 ms, max $max ms ($count samples)"),
+    STATS_CYCLE("command.stats.cycle", "Cycle: mean $mean h, max $max h ($count completed)");
+
+    private final String key;
+    private final String defaultVal;
+
+    CommandMessage(String key, String defaultVal)
+    {
+        this.key = key;
+        this.defaultVal = defaultVal;
+    }
+
+    @Override
+    public @NotNull String getKey()
+    {
+        return this.key;
+    }
+
+    @Override
+    public @NotNull String getDefault()
+    {
+        return defaultVal;
+    }
+
+}
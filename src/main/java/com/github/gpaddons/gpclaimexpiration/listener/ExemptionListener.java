@@ -0,0 +1,39 @@
+package com.github.gpaddons.gpclaimexpiration.listener;
+
+import com.github.gpaddons.gpclaimexpiration.GPClaimExpiration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener for discarding cached exemption results when they may have changed.
+ *
+ * <p>Claim blocks and permissions are most likely to change while a player is online, so results are
+ * discarded both when a player logs in and when they log out.
+ */
+public class ExemptionListener implements Listener
+{
+
+    private final GPClaimExpiration plugin;
+
+    public ExemptionListener(GPClaimExpiration plugin)
+    {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onJoin(@NotNull PlayerJoinEvent event)
+    {
+        plugin.config().invalidateExemption(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onQuit(@NotNull PlayerQuitEvent event)
+    {
+        plugin.config().invalidateExemption(event.getPlayer().getUniqueId());
+    }
+
+}
@@ -45,20 +45,42 @@ abstract class WarningListener implements Listener
         // Ensure claim is a top level player claim.
         if (claim.ownerID == null || claim.parent != null) return;
 
-        OfflinePlayer player = plugin.getServer().getOfflinePlayer(claim.ownerID);
-
         long protectionDuration = plugin.config().getProtectionDuration(claim);
 
         // Ensure claim is of a size that will actually expire.
         if (protectionDuration == Long.MAX_VALUE) return;
 
-        // Ensure claim will be eligible for delete.
-        if (plugin.config().isExempt(player, playerModifier.getWorld().getName())) return;
-
         long days = TimeUnit.DAYS.convert(protectionDuration, TimeUnit.MILLISECONDS);
+        UUID owner = claim.ownerID;
+        String worldName = playerModifier.getWorld().getName();
+
+        // Ensure claim will be eligible for delete. Prefer cached results to avoid permission lookups.
+        Boolean exempt = plugin.config().getCachedExemption(owner, worldName);
+        if (exempt != null)
+        {
+            if (!exempt) plugin.getServer().getScheduler().runTask(plugin, () -> sendWarning(playerModifier, days));
+            return;
+        }
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () ->
+        {
+            OfflinePlayer player = plugin.getServer().getOfflinePlayer(owner);
+
+            if (plugin.config().isExempt(player, worldName)) return;
+
+            // Don't attempt to schedule if plugin is disabled.
+            if (!plugin.isEnabled()) return;
+
+            plugin.getServer().getScheduler().runTask(plugin, () -> sendWarning(playerModifier, days));
+        });
+    }
+
+    private void sendWarning(@NotNull Player player, long days)
+    {
+        // Player may have logged out while exemption was checked.
+        if (!player.isOnline()) return;
 
-        plugin.getServer().getScheduler().runTask(plugin, () -> Lang.sendMessage(modifier,
-                Message.NOTIFICATION_EXPIRATION, value -> value.replace("$days", String.valueOf(days))));
+        Lang.sendMessage(player, Message.NOTIFICATION_EXPIRATION, value -> value.replace("$days", String.valueOf(days)));
     }
 
 }
@@ -0,0 +1,37 @@
+package com.github.gpaddons.gpclaimexpiration.listener;
+
+import com.github.gpaddons.gpclaimexpiration.GPClaimExpiration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener for recompiling per-world settings when the set of loaded worlds changes.
+ */
+public class WorldListener implements Listener
+{
+
+    private final GPClaimExpiration plugin;
+
+    public WorldListener(GPClaimExpiration plugin)
+    {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onWorldLoad(@NotNull WorldLoadEvent event)
+    {
+        plugin.config().compileDurations();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onWorldUnload(@NotNull WorldUnloadEvent event)
+    {
+        // World is not removed until after the event completes.
+        plugin.getServer().getScheduler().runTask(plugin, () -> plugin.config().compileDurations());
+    }
+
+}
@@ -0,0 +1,309 @@
+package com.github.gpaddons.gpclaimexpiration.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and latency histograms for the expiration engine.
+ */
+public class ExpirationMetrics implements ExpirationMetricsMXBean
+{
+
+    private static final double NANOS_PER_MILLI = TimeUnit.NANOSECONDS.convert(1, TimeUnit.MILLISECONDS);
+    private static final double NANOS_PER_HOUR = TimeUnit.NANOSECONDS.convert(1, TimeUnit.HOURS);
+
+    private final LongAdder ownersChecked = new LongAdder();
+    private final LongAdder claimsEvaluated = new LongAdder();
+    private final LongAdder exemptHits = new LongAdder();
+    private final LongAdder claimsExpired = new LongAdder();
+    private final LongAdder eventCancellations = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedOwners = new LongAdder();
+    private final LatencyHistogram syncWait = new LatencyHistogram();
+    private final LatencyHistogram deletion = new LatencyHistogram();
+    private final LatencyHistogram cycle = new LatencyHistogram();
+    private volatile IntSupplier remainingOwners = () -> 0;
+    private volatile IntSupplier queuedDeletions = () -> 0;
+    private volatile DoubleSupplier rateMultiplier = () -> 1;
+    private volatile int batchSize = 1;
+    private ObjectName objectName;
+
+    public void ownerChecked()
+    {
+        ownersChecked.increment();
+    }
+
+    public void claimEvaluated()
+    {
+        claimsEvaluated.increment();
+    }
+
+    public void exemptHit()
+    {
+        exemptHits.increment();
+    }
+
+    public void claimExpired()
+    {
+        claimsExpired.increment();
+    }
+
+    public void eventCancelled()
+    {
+        eventCancellations.increment();
+    }
+
+    public void batchEvaluated(int owners)
+    {
+        batches.increment();
+        batchedOwners.add(owners);
+    }
+
+    /**
+     * Get the histogram of time spent blocked waiting for the main thread.
+     *
+     * @return the histogram
+     */
+    public @NotNull LatencyHistogram getSyncWait()
+    {
+        return syncWait;
+    }
+
+    /**
+     * Get the histogram of main thread time spent per claim deletion.
+     *
+     * @return the histogram
+     */
+    public @NotNull LatencyHistogram getDeletion()
+    {
+        return deletion;
+    }
+
+    /**
+     * Get the histogram of evaluation cycle durations.
+     *
+     * @return the histogram
+     */
+    public @NotNull LatencyHistogram getCycle()
+    {
+        return cycle;
+    }
+
+    /**
+     * Set the source of the number of owners remaining in the current cycle.
+     *
+     * @param remainingOwners the supplier
+     */
+    public void setRemainingOwners(@NotNull IntSupplier remainingOwners)
+    {
+        this.remainingOwners = remainingOwners;
+    }
+
+    /**
+     * Set the source of the number of deletions waiting for the main thread.
+     *
+     * @param queuedDeletions the supplier
+     */
+    public void setQueuedDeletions(@NotNull IntSupplier queuedDeletions)
+    {
+        this.queuedDeletions = queuedDeletions;
+    }
+
+    /**
+     * Set the source of the current multiplier applied to the configured evaluation rate.
+     *
+     * @param rateMultiplier the supplier
+     */
+    public void setRateMultiplier(@NotNull DoubleSupplier rateMultiplier)
+    {
+        this.rateMultiplier = rateMultiplier;
+    }
+
+    /**
+     * Set the configured maximum number of owners evaluated per run.
+     *
+     * @param batchSize the batch size
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Register the metrics with the platform MBean server.
+     *
+     * @throws JMException if registration fails
+     */
+    public void register() throws JMException
+    {
+        ObjectName name = new ObjectName("com.github.gpaddons.gpclaimexpiration:type=ExpirationMetrics");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        // Replace stale registrations from a previous enable.
+        if (server.isRegistered(name))
+        {
+            try
+            {
+                server.unregisterMBean(name);
+            }
+            catch (InstanceNotFoundException ignored)
+            {
+                // Unregistered concurrently.
+            }
+        }
+
+        server.registerMBean(this, name);
+        objectName = name;
+    }
+
+    /**
+     * Unregister the metrics from the platform MBean server.
+     */
+    public void unregister()
+    {
+        if (objectName == null) return;
+
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+        catch (InstanceNotFoundException | MBeanRegistrationException ignored)
+        {
+            // Already unregistered.
+        }
+
+        objectName = null;
+    }
+
+    @Override
+    public long getOwnersChecked()
+    {
+        return ownersChecked.sum();
+    }
+
+    @Override
+    public long getClaimsEvaluated()
+    {
+        return claimsEvaluated.sum();
+    }
+
+    @Override
+    public long getExemptHits()
+    {
+        return exemptHits.sum();
+    }
+
+    @Override
+    public long getClaimsExpired()
+    {
+        return claimsExpired.sum();
+    }
+
+    @Override
+    public long getEventCancellations()
+    {
+        return eventCancellations.sum();
+    }
+
+    @Override
+    public int getRemainingOwners()
+    {
+        return remainingOwners.getAsInt();
+    }
+
+    @Override
+    public int getQueuedDeletions()
+    {
+        return queuedDeletions.getAsInt();
+    }
+
+    @Override
+    public double getRateMultiplier()
+    {
+        return rateMultiplier.getAsDouble();
+    }
+
+    @Override
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    @Override
+    public long getBatchesRun()
+    {
+        return batches.sum();
+    }
+
+    @Override
+    public double getAverageBatchSize()
+    {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) batchedOwners.sum() / count;
+    }
+
+    @Override
+    public long getCyclesCompleted()
+    {
+        return cycle.getCount();
+    }
+
+    @Override
+    public double getSyncWaitMeanMillis()
+    {
+        return syncWait.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getSyncWaitP99Millis()
+    {
+        return syncWait.getPercentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getSyncWaitMaxMillis()
+    {
+        return syncWait.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getDeletionMeanMillis()
+    {
+        return deletion.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getDeletionP99Millis()
+    {
+        return deletion.getPercentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getDeletionMaxMillis()
+    {
+        return deletion.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getCycleMeanHours()
+    {
+        return cycle.getMean() / NANOS_PER_HOUR;
+    }
+
+    @Override
+    public double getCycleMaxHours()
+    {
+        return cycle.getMax() / NANOS_PER_HOUR;
+    }
+
+}
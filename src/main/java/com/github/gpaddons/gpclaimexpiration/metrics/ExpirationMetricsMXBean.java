@@ -0,0 +1,49 @@
+package com.github.gpaddons.gpclaimexpiration.metrics;
+
+/**
+ * Management interface exposing {@link ExpirationMetrics} over JMX.
+ */
+public interface ExpirationMetricsMXBean
+{
+
+    long getOwnersChecked();
+
+    long getClaimsEvaluated();
+
+    long getExemptHits();
+
+    long getClaimsExpired();
+
+    long getEventCancellations();
+
+    int getRemainingOwners();
+
+    int getQueuedDeletions();
+
+    double getRateMultiplier();
+
+    int getBatchSize();
+
+    long getBatchesRun();
+
+    double getAverageBatchSize();
+
+    long getCyclesCompleted();
+
+    double getSyncWaitMeanMillis();
+
+    double getSyncWaitP99Millis();
+
+    double getSyncWaitMaxMillis();
+
+    double getDeletionMeanMillis();
+
+    double getDeletionP99Millis();
+
+    double getDeletionMaxMillis();
+
+    double getCycleMeanHours();
+
+    double getCycleMaxHours();
+
+}
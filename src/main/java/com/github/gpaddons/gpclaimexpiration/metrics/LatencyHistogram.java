@@ -0,0 +1,90 @@
+package com.github.gpaddons.gpclaimexpiration.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds with power of two buckets.
+ *
+ * <p>Percentiles are approximate and reported as the upper bound of the containing bucket.
+ */
+public class LatencyHistogram
+{
+
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos)
+    {
+        if (nanos < 0) nanos = 0;
+
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos) - (nanos == 0 ? 0 : 1));
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Get the number of recorded durations.
+     *
+     * @return the number of durations
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * Get the mean duration.
+     *
+     * @return the mean in nanoseconds
+     */
+    public double getMean()
+    {
+        long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * Get the maximum duration.
+     *
+     * @return the maximum in nanoseconds
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * Get an approximate percentile.
+     *
+     * @param percentile the percentile between 0 and 1
+     * @return the upper bound of the bucket containing the percentile in nanoseconds
+     */
+    public long getPercentile(double percentile)
+    {
+        long total = count.sum();
+
+        if (total == 0) return 0;
+
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int bucket = 0; bucket < Long.SIZE; ++bucket)
+        {
+            seen += buckets.get(bucket);
+            // Report bucket upper bound, but never more than the actual maximum.
+            if (seen >= target) return Math.min(getMax(), bucket >= Long.SIZE - 2 ? Long.MAX_VALUE : (2L << bucket) - 1);
+        }
+
+        return getMax();
+    }
+
+}
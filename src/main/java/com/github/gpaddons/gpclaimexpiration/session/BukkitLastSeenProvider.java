@@ -0,0 +1,34 @@
+package com.github.gpaddons.gpclaimexpiration.session;
+
+import org.bukkit.Server;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Provider of last seen times using {@link org.bukkit.OfflinePlayer#getLastPlayed()}.
+ */
+public class BukkitLastSeenProvider implements LastSeenProvider
+{
+
+    private final @NotNull Server server;
+
+    public BukkitLastSeenProvider(@NotNull Server server)
+    {
+        this.server = server;
+    }
+
+    @Override
+    public long @NotNull [] lookup(@NotNull Collection<UUID> uuids)
+    {
+        long[] lastSeen = new long[uuids.size()];
+        int index = 0;
+        for (UUID uuid : uuids)
+        {
+            lastSeen[index++] = server.getOfflinePlayer(uuid).getLastPlayed();
+        }
+        return lastSeen;
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.github.gpaddons.gpclaimexpiration.session;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Provider consulting other providers in order. Each provider is only asked for the players that
+ * all previous providers could not resolve.
+ */
+public class ChainedLastSeenProvider implements LastSeenProvider
+{
+
+    private final @NotNull List<LastSeenProvider> providers;
+
+    public ChainedLastSeenProvider(@NotNull List<LastSeenProvider> providers)
+    {
+        this.providers = List.copyOf(providers);
+    }
+
+    @Override
+    public long @NotNull [] lookup(@NotNull Collection<UUID> uuids)
+    {
+        long[] lastSeen = new long[uuids.size()];
+        List<UUID> remaining = new ArrayList<>(uuids);
+        // Indices of remaining players in the result.
+        int[] positions = new int[remaining.size()];
+        for (int i = 0; i < positions.length; ++i) positions[i] = i;
+
+        for (LastSeenProvider provider : providers)
+        {
+            if (remaining.isEmpty()) break;
+
+            long[] found = provider.lookup(remaining);
+
+            List<UUID> unresolved = new ArrayList<>();
+            int[] unresolvedPositions = new int[remaining.size()];
+            for (int i = 0; i < found.length; ++i)
+            {
+                if (found[i] > 0)
+                {
+                    lastSeen[positions[i]] = found[i];
+                }
+                else
+                {
+                    unresolvedPositions[unresolved.size()] = positions[i];
+                    unresolved.add(remaining.get(i));
+                }
+            }
+
+            remaining = unresolved;
+            positions = unresolvedPositions;
+        }
+
+        return lastSeen;
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.github.gpaddons.gpclaimexpiration.session;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Provider of last seen times stored in a database.
+ *
+ * <p>The configured query must select UUIDs as strings and last seen times in milliseconds since the
+ * epoch as its first and second columns. The {@code $uuids} placeholder is replaced with one
+ * parameter per player, so a batch of players is resolved in a single statement. Any JDBC driver
+ * available to the server may be used.
+ *
+ * <p>A single connection is reused between lookups. Connection timeouts are driver specific, so
+ * they must be supplied as connection properties. If the database cannot be reached, lookups are
+ * skipped for a while so that evaluation is not held up by repeated timeouts. Lookups may block and
+ * must not be performed on the main thread.
+ */
+public class JdbcLastSeenProvider implements LastSeenProvider, AutoCloseable
+{
+
+    private static final int MAX_PARAMETERS = 500;
+    private static final int TIMEOUT_SECONDS = 5;
+    private static final long RETRY_MILLIS = TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES);
+    private static final String PLACEHOLDER = "$uuids";
+
+    private final @NotNull Logger logger;
+    private final @NotNull String url;
+    private final @NotNull Properties properties;
+    private final @NotNull String query;
+    private @Nullable Connection connection;
+    private long retryAfter = 0;
+    private boolean failing = false;
+
+    public JdbcLastSeenProvider(
+            @NotNull Logger logger,
+            @NotNull String url,
+            @NotNull Properties properties,
+            @NotNull String query)
+    {
+        this.logger = logger;
+        this.url = url;
+        this.properties = properties;
+        this.query = query;
+    }
+
+    @Override
+    public synchronized long @NotNull [] lookup(@NotNull Collection<UUID> uuids)
+    {
+        Map<UUID, Long> found = new HashMap<>();
+        List<UUID> players = List.copyOf(uuids);
+
+        // Unresolved players are left to the next provider.
+        if (System.currentTimeMillis() >= retryAfter)
+        {
+            try
+            {
+                Connection current = getConnection();
+                for (int start = 0; start < players.size(); start += MAX_PARAMETERS)
+                {
+                    query(current, players.subList(start, Math.min(players.size(), start + MAX_PARAMETERS)), found);
+                }
+
+                if (failing)
+                {
+                    failing = false;
+                    logger.info("Database for last seen times is available again.");
+                }
+            }
+            catch (SQLException e)
+            {
+                fail(e);
+            }
+        }
+
+        long[] lastSeen = new long[players.size()];
+        for (int i = 0; i < lastSeen.length; ++i)
+        {
+            lastSeen[i] = found.getOrDefault(players.get(i), 0L);
+        }
+        return lastSeen;
+    }
+
+    private @NotNull Connection getConnection() throws SQLException
+    {
+        if (connection != null && connection.isValid(TIMEOUT_SECONDS)) return connection;
+
+        closeConnection();
+        connection = DriverManager.getConnection(url, properties);
+        return connection;
+    }
+
+    private void fail(@NotNull SQLException e)
+    {
+        closeConnection();
+        retryAfter = System.currentTimeMillis() + RETRY_MILLIS;
+
+        // Only log the first failure in a row.
+        if (failing) return;
+
+        failing = true;
+        logger.log(Level.WARNING, "Unable to look up last seen times from database, retrying every minute", e);
+    }
+
+    private void closeConnection()
+    {
+        if (connection == null) return;
+
+        try
+        {
+            connection.close();
+        }
+        catch (SQLException ignored)
+        {
+            // Connection is discarded regardless.
+        }
+
+        connection = null;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        closeConnection();
+    }
+
+    private void query(
+            @NotNull Connection connection,
+            @NotNull List<UUID> players,
+            @NotNull Map<UUID, Long> found) throws SQLException
+    {
+        String sql = query.replace(PLACEHOLDER, String.join(",", Collections.nCopies(players.size(), "?")));
+
+        try (PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            statement.setQueryTimeout(TIMEOUT_SECONDS);
+            for (int i = 0; i < players.size(); ++i)
+            {
+                statement.setString(i + 1, players.get(i).toString());
+            }
+
+            try (ResultSet results = statement.executeQuery())
+            {
+                while (results.next())
+                {
+                    String value = results.getString(1);
+                    if (value == null) continue;
+
+                    UUID uuid;
+                    try
+                    {
+                        uuid = UUID.fromString(value);
+                    }
+                    catch (IllegalArgumentException e)
+                    {
+                        continue;
+                    }
+
+                    found.merge(uuid, results.getLong(2), Math::max);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,309 @@
+package com.github.gpaddons.gpclaimexpiration.session;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An index of last played times read in bulk from the server's player data files.
+ *
+ * <p>Each scan reads every {@code playerdata/<uuid>.dat} file in parallel. Only the root compound's
+ * {@code bukkit.lastPlayed} and {@code Paper.LastSeen} tags are decoded, all other tags are skipped.
+ * If neither tag is present, the file's modification time is used instead, matching CraftBukkit.
+ *
+ * <p>Players who log out after a scan are tracked separately so that the index never reports an
+ * earlier time than the server would.
+ */
+public class LastPlayedIndex implements Listener, LastSeenProvider
+{
+
+    private static final byte TAG_END = 0;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_COMPOUND = 10;
+    private static final String DATA_EXTENSION = ".dat";
+
+    private final @NotNull Plugin plugin;
+    private final @NotNull Path playerData;
+    private final @NotNull Map<UUID, Long> recent = new ConcurrentHashMap<>();
+    private volatile @NotNull Table table = new Table(new long[0], new long[0], new long[0]);
+
+    public LastPlayedIndex(@NotNull Plugin plugin, @NotNull Path playerData)
+    {
+        this.plugin = plugin;
+        this.playerData = playerData;
+    }
+
+    /**
+     * Register the listener tracking players who log out between scans.
+     */
+    public void start()
+    {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Get the last time a player was seen.
+     *
+     * @param uuid the UUID of the player
+     * @return the last played time in milliseconds since the epoch or 0 if unknown
+     */
+    public long get(@NotNull UUID uuid)
+    {
+        Long recentValue = recent.get(uuid);
+        if (recentValue != null) return recentValue;
+
+        return table.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    @Override
+    public long @NotNull [] lookup(@NotNull Collection<UUID> uuids)
+    {
+        long[] lastPlayed = new long[uuids.size()];
+        int index = 0;
+        for (UUID uuid : uuids)
+        {
+            lastPlayed[index++] = get(uuid);
+        }
+        return lastPlayed;
+    }
+
+    /**
+     * Get the number of players in the index.
+     *
+     * @return the number of players
+     */
+    public int size()
+    {
+        return table.msb().length;
+    }
+
+    /**
+     * Replace the index with the content of the player data files. Blocks until all files are read,
+     * so this should not be called on the main thread.
+     *
+     * @throws IOException if the player data directory cannot be listed
+     */
+    public synchronized void scan() throws IOException
+    {
+        if (!Files.isDirectory(playerData)) return;
+
+        long scanStart = System.currentTimeMillis();
+
+        List<Entry> entries;
+        try (Stream<Path> files = Files.list(playerData))
+        {
+            entries = files.toList().parallelStream()
+                    .map(LastPlayedIndex::read)
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparingLong(Entry::msb).thenComparingLong(Entry::lsb))
+                    .toList();
+        }
+
+        long[] msb = new long[entries.size()];
+        long[] lsb = new long[entries.size()];
+        long[] lastPlayed = new long[entries.size()];
+        for (int i = 0; i < msb.length; ++i)
+        {
+            Entry entry = entries.get(i);
+            msb[i] = entry.msb();
+            lsb[i] = entry.lsb();
+            lastPlayed[i] = entry.lastPlayed();
+        }
+
+        table = new Table(msb, lsb, lastPlayed);
+
+        // Logouts before the scan started are reflected in the files.
+        recent.values().removeIf(value -> value < scanStart);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onQuit(@NotNull PlayerQuitEvent event)
+    {
+        recent.put(event.getPlayer().getUniqueId(), System.currentTimeMillis());
+    }
+
+    private static @Nullable Entry read(@NotNull Path file)
+    {
+        String name = file.getFileName().toString();
+
+        if (!name.endsWith(DATA_EXTENSION)) return null;
+
+        UUID uuid;
+        try
+        {
+            uuid = UUID.fromString(name.substring(0, name.length() - DATA_EXTENSION.length()));
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+
+        long lastPlayed;
+        try
+        {
+            lastPlayed = readLastPlayed(file);
+            if (lastPlayed <= 0) lastPlayed = Files.getLastModifiedTime(file).toMillis();
+        }
+        catch (IOException e)
+        {
+            // Unreadable files are left to the server's own lookup.
+            return null;
+        }
+
+        return new Entry(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), lastPlayed);
+    }
+
+    /**
+     * Read the latest of the last played times stored in a player data file.
+     *
+     * @return the last played time or 0 if not present
+     */
+    private static long readLastPlayed(@NotNull Path file) throws IOException
+    {
+        try (InputStream stream = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file)));
+             DataInputStream data = new DataInputStream(stream))
+        {
+            if (data.readByte() != TAG_COMPOUND) return 0;
+            skipString(data);
+
+            long lastPlayed = 0;
+            byte type;
+            while ((type = data.readByte()) != TAG_END)
+            {
+                String tagName = data.readUTF();
+
+                if (type == TAG_COMPOUND && tagName.equals("bukkit"))
+                    lastPlayed = Math.max(lastPlayed, readLong(data, "lastPlayed"));
+                else if (type == TAG_COMPOUND && tagName.equals("Paper"))
+                    lastPlayed = Math.max(lastPlayed, readLong(data, "LastSeen"));
+                else
+                    skipPayload(data, type);
+            }
+
+            return lastPlayed;
+        }
+    }
+
+    /**
+     * Read a long tag from a compound, skipping the remainder of the compound.
+     *
+     * @return the value or 0 if not present
+     */
+    private static long readLong(@NotNull DataInputStream data, @NotNull String key) throws IOException
+    {
+        long value = 0;
+        byte type;
+        while ((type = data.readByte()) != TAG_END)
+        {
+            String tagName = data.readUTF();
+
+            if (type == TAG_LONG && tagName.equals(key)) value = data.readLong();
+            else skipPayload(data, type);
+        }
+        return value;
+    }
+
+    private static void skipPayload(@NotNull DataInputStream data, byte type) throws IOException
+    {
+        switch (type)
+        {
+            case 1 -> skip(data, 1);
+            case 2 -> skip(data, 2);
+            case 3, 5 -> skip(data, 4);
+            case 4, 6 -> skip(data, 8);
+            case 7 -> skip(data, data.readInt());
+            case 8 -> skipString(data);
+            case 9 ->
+            {
+                byte elementType = data.readByte();
+                int length = data.readInt();
+                for (int i = 0; i < length; ++i) skipPayload(data, elementType);
+            }
+            case 10 ->
+            {
+                byte childType;
+                while ((childType = data.readByte()) != TAG_END)
+                {
+                    skipString(data);
+                    skipPayload(data, childType);
+                }
+            }
+            case 11 -> skip(data, data.readInt() * 4L);
+            case 12 -> skip(data, data.readInt() * 8L);
+            default -> throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private static void skipString(@NotNull DataInputStream data) throws IOException
+    {
+        skip(data, data.readUnsignedShort());
+    }
+
+    private static void skip(@NotNull DataInputStream data, long bytes) throws IOException
+    {
+        if (bytes < 0) throw new IOException("Negative NBT length");
+
+        while (bytes > 0)
+        {
+            long skipped = data.skip(bytes);
+            if (skipped <= 0)
+            {
+                // Skip may legitimately return 0, fall back to reading to detect end of stream.
+                if (data.read() < 0) throw new EOFException();
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    private record Entry(long msb, long lsb, long lastPlayed) {}
+
+    /**
+     * Last played times in parallel arrays sorted by UUID.
+     */
+    private record Table(long @NotNull [] msb, long @NotNull [] lsb, long @NotNull [] lastPlayed)
+    {
+
+        long get(long uuidMsb, long uuidLsb)
+        {
+            int low = 0;
+            int high = msb.length - 1;
+
+            while (low <= high)
+            {
+                int mid = (low + high) >>> 1;
+                int comparison = Long.compare(msb[mid], uuidMsb);
+                if (comparison == 0) comparison = Long.compare(lsb[mid], uuidLsb);
+
+                if (comparison < 0) low = mid + 1;
+                else if (comparison > 0) high = mid - 1;
+                else return lastPlayed[mid];
+            }
+
+            return 0;
+        }
+
+    }
+
+}
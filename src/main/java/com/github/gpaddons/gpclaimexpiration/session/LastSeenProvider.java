@@ -0,0 +1,26 @@
+package com.github.gpaddons.gpclaimexpiration.session;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * A source of players' last seen times.
+ *
+ * <p>Lookups are batched so that sources backed by storage can resolve many players at once.
+ * Implementations may be called from any thread.
+ */
+public interface LastSeenProvider
+{
+
+    /**
+     * Look up the last seen times of players.
+     *
+     * @param uuids the UUIDs of the players
+     * @return the last seen times in milliseconds since the epoch in the iteration order of the
+     *         UUIDs, with 0 for any player whose time is unknown
+     */
+    long @NotNull [] lookup(@NotNull Collection<UUID> uuids);
+
+}
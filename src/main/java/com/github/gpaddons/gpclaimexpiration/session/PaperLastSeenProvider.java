@@ -0,0 +1,71 @@
+package com.github.gpaddons.gpclaimexpiration.session;
+
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Provider of last seen times using Paper's {@code OfflinePlayer#getLastSeen()}, which records
+ * when a player last logged out rather than when their data was last saved.
+ */
+public class PaperLastSeenProvider implements LastSeenProvider
+{
+
+    private final @NotNull Server server;
+    private final @NotNull Method getLastSeen;
+
+    private PaperLastSeenProvider(@NotNull Server server, @NotNull Method getLastSeen)
+    {
+        this.server = server;
+        this.getLastSeen = getLastSeen;
+    }
+
+    /**
+     * Create a provider if the server supports it.
+     *
+     * @param server the server
+     * @return the provider or null if the server is not running Paper
+     */
+    public static @Nullable PaperLastSeenProvider create(@NotNull Server server)
+    {
+        try
+        {
+            return new PaperLastSeenProvider(server, OfflinePlayer.class.getMethod("getLastSeen"));
+        }
+        catch (NoSuchMethodException e)
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public long @NotNull [] lookup(@NotNull Collection<UUID> uuids)
+    {
+        long[] lastSeen = new long[uuids.size()];
+        int index = 0;
+        for (UUID uuid : uuids)
+        {
+            lastSeen[index++] = getLastSeen(server.getOfflinePlayer(uuid));
+        }
+        return lastSeen;
+    }
+
+    private long getLastSeen(@NotNull OfflinePlayer player)
+    {
+        try
+        {
+            return ((Number) getLastSeen.invoke(player)).longValue();
+        }
+        catch (IllegalAccessException | InvocationTargetException | ClassCastException e)
+        {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,285 @@
+package com.github.gpaddons.gpclaimexpiration.session;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A memory-mapped store of last qualifying session times keyed by UUID.
+ *
+ * <p>The file is a fixed-record open addressing hash table. Each record is a UUID's most and least
+ * significant bits followed by the session end time, all as big-endian longs. The all-zero UUID
+ * marks an empty record.
+ *
+ * <p>Reads are optimistic and do not lock. Writes are buffered in memory until {@link #flush()}.
+ */
+public class SessionStore implements AutoCloseable
+{
+
+    private static final int MAGIC = 0x47504353;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 24;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final @NotNull FileChannel channel;
+    private final @NotNull StampedLock lock = new StampedLock();
+    private final @NotNull Map<UUID, Long> pending = new ConcurrentHashMap<>();
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+
+    /**
+     * Open or create a store.
+     *
+     * @param path the path of the backing file
+     * @throws IOException if the file cannot be opened or is not a valid store
+     */
+    public SessionStore(@NotNull Path path) throws IOException
+    {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try
+        {
+            if (channel.size() < HEADER_BYTES)
+            {
+                map(INITIAL_CAPACITY);
+                size = 0;
+                writeHeader();
+                return;
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                throw new IOException("Invalid session store " + path);
+
+            int storedCapacity = header.getInt(8);
+            if (Integer.bitCount(storedCapacity) != 1
+                    || channel.size() < HEADER_BYTES + (long) storedCapacity * RECORD_BYTES)
+                throw new IOException("Corrupt session store " + path);
+
+            map(storedCapacity);
+
+            // Stored size is only a hint, a corrupt or interrupted write may leave it wrong.
+            size = countRecords();
+            if (size != header.getInt(12)) writeHeader();
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the last qualifying session recorded for a UUID.
+     *
+     * @param uuid the UUID
+     * @return the end of the last qualifying session in milliseconds since the epoch or 0 if unknown
+     */
+    public long get(@NotNull UUID uuid)
+    {
+        Long pendingValue = pending.get(uuid);
+        if (pendingValue != null) return pendingValue;
+
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+
+        long stamp = lock.tryOptimisticRead();
+        long value = read(msb, lsb);
+
+        if (lock.validate(stamp)) return value;
+
+        // A flush was in progress, fall back to a full read lock.
+        stamp = lock.readLock();
+        try
+        {
+            return read(msb, lsb);
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Record a qualifying session. The value is not persisted until the next {@link #flush()}.
+     *
+     * @param uuid the UUID
+     * @param sessionEnd the end of the session in milliseconds since the epoch
+     */
+    public void record(@NotNull UUID uuid, long sessionEnd)
+    {
+        pending.merge(uuid, sessionEnd, Math::max);
+    }
+
+    /**
+     * Write all buffered sessions to the backing file.
+     *
+     * @throws IOException if the file cannot be grown
+     */
+    public synchronized void flush() throws IOException
+    {
+        if (pending.isEmpty()) return;
+
+        long stamp = lock.writeLock();
+        try
+        {
+            for (Map.Entry<UUID, Long> entry : pending.entrySet())
+            {
+                if (size + 1 > capacity / 4 * 3) grow();
+
+                UUID uuid = entry.getKey();
+                write(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), entry.getValue());
+                // Only discard the pending value if it was not replaced during the write.
+                pending.remove(uuid, entry.getValue());
+            }
+
+            writeHeader();
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    private void map(int newCapacity) throws IOException
+    {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) newCapacity * RECORD_BYTES);
+        capacity = newCapacity;
+    }
+
+    private int countRecords()
+    {
+        int count = 0;
+        for (int slot = 0; slot < capacity; ++slot)
+        {
+            int position = HEADER_BYTES + slot * RECORD_BYTES;
+            if (buffer.getLong(position) != 0 || buffer.getLong(position + 8) != 0) ++count;
+        }
+        return count;
+    }
+
+    private void writeHeader()
+    {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, capacity);
+        buffer.putInt(12, size);
+    }
+
+    private long read(long msb, long lsb)
+    {
+        MappedByteBuffer buffer = this.buffer;
+        int mask = capacity - 1;
+
+        // Guard against a torn read of a capacity and buffer pair.
+        if (buffer.capacity() < HEADER_BYTES + (long) capacity * RECORD_BYTES) return 0;
+
+        for (int slot = hash(msb, lsb) & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, ++probes)
+        {
+            int position = HEADER_BYTES + slot * RECORD_BYTES;
+            long slotMsb = buffer.getLong(position);
+            long slotLsb = buffer.getLong(position + 8);
+
+            if (slotMsb == msb && slotLsb == lsb) return buffer.getLong(position + 16);
+
+            if (slotMsb == 0 && slotLsb == 0) return 0;
+        }
+
+        return 0;
+    }
+
+    private void write(long msb, long lsb, long value)
+    {
+        int mask = capacity - 1;
+
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask)
+        {
+            int position = HEADER_BYTES + slot * RECORD_BYTES;
+            long slotMsb = buffer.getLong(position);
+            long slotLsb = buffer.getLong(position + 8);
+
+            if (slotMsb == 0 && slotLsb == 0)
+            {
+                buffer.putLong(position, msb);
+                buffer.putLong(position + 8, lsb);
+                buffer.putLong(position + 16, value);
+                ++size;
+                return;
+            }
+
+            if (slotMsb == msb && slotLsb == lsb)
+            {
+                buffer.putLong(position + 16, Math.max(value, buffer.getLong(position + 16)));
+                return;
+            }
+        }
+    }
+
+    private void grow() throws IOException
+    {
+        // Copy existing records to the heap for the duration of the rehash.
+        long[] records = new long[size * 3];
+        int count = 0;
+        for (int slot = 0; slot < capacity; ++slot)
+        {
+            int position = HEADER_BYTES + slot * RECORD_BYTES;
+            long msb = buffer.getLong(position);
+            long lsb = buffer.getLong(position + 8);
+
+            if (msb == 0 && lsb == 0) continue;
+
+            records[count++] = msb;
+            records[count++] = lsb;
+            records[count++] = buffer.getLong(position + 16);
+        }
+
+        map(capacity * 2);
+
+        // Clear the table before reinserting records.
+        for (int position = HEADER_BYTES; position < buffer.capacity(); position += 8)
+        {
+            buffer.putLong(position, 0);
+        }
+
+        size = 0;
+        for (int i = 0; i < count; i += 3)
+        {
+            write(records[i], records[i + 1], records[i + 2]);
+        }
+    }
+
+    private static int hash(long msb, long lsb)
+    {
+        long hash = msb ^ lsb;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.github.gpaddons.gpclaimexpiration.session;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Listener recording qualifying play sessions.
+ *
+ * <p>A session qualifies if it lasts at least the configured minimum length. Qualifying sessions
+ * are recorded in a {@link SessionStore} that is flushed to disk periodically.
+ */
+public class SessionTracker implements Listener, LastSeenProvider, AutoCloseable
+{
+
+    private static final long FLUSH_INTERVAL_TICKS = 6000L;
+
+    private final @NotNull Plugin plugin;
+    private final @NotNull SessionStore store;
+    private final @NotNull Map<UUID, Long> sessionStarts = new ConcurrentHashMap<>();
+    private BukkitTask flushTask;
+
+    public SessionTracker(@NotNull Plugin plugin, @NotNull Path path) throws IOException
+    {
+        this.plugin = plugin;
+        this.store = new SessionStore(path);
+    }
+
+    /**
+     * Register the listener and begin periodically flushing sessions.
+     */
+    public void start()
+    {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+
+        // Treat existing players as having joined now.
+        long now = System.currentTimeMillis();
+        for (Player player : plugin.getServer().getOnlinePlayers())
+        {
+            sessionStarts.put(player.getUniqueId(), now);
+        }
+
+        flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::flush,
+                FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS);
+    }
+
+    /**
+     * Get the end of a player's last recorded qualifying session.
+     *
+     * @param uuid the UUID of the player
+     * @return the end of the session in milliseconds since the epoch or 0 if no session is known
+     */
+    public long getLastSession(@NotNull UUID uuid)
+    {
+        return store.get(uuid);
+    }
+
+    @Override
+    public long @NotNull [] lookup(@NotNull Collection<UUID> uuids)
+    {
+        long[] lastSessions = new long[uuids.size()];
+        int index = 0;
+        for (UUID uuid : uuids)
+        {
+            lastSessions[index++] = store.get(uuid);
+        }
+        return lastSessions;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onJoin(@NotNull PlayerJoinEvent event)
+    {
+        sessionStarts.put(event.getPlayer().getUniqueId(), System.currentTimeMillis());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onQuit(@NotNull PlayerQuitEvent event)
+    {
+        endSession(event.getPlayer().getUniqueId(), System.currentTimeMillis());
+    }
+
+    private void endSession(@NotNull UUID uuid, long now)
+    {
+        Long start = sessionStarts.remove(uuid);
+
+        if (start == null) return;
+
+        // Ensure session is long enough to qualify.
+        if (now - start < getMinimumSessionLength()) return;
+
+        store.record(uuid, now);
+    }
+
+    private long getMinimumSessionLength()
+    {
+        int minutes = plugin.getConfig().getInt("expiration.session.minimum_minutes", 0);
+        return TimeUnit.MILLISECONDS.convert(Math.max(0, minutes), TimeUnit.MINUTES);
+    }
+
+    private void flush()
+    {
+        try
+        {
+            store.flush();
+        }
+        catch (IOException e)
+        {
+            plugin.getLogger().log(Level.WARNING, "Unable to write sessions to disk", e);
+        }
+    }
+
+    /**
+     * End all ongoing sessions and write them to disk.
+     *
+     * @throws IOException if the sessions cannot be written
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (flushTask != null) flushTask.cancel();
+
+        long now = System.currentTimeMillis();
+        for (UUID uuid : sessionStarts.keySet())
+        {
+            endSession(uuid, now);
+        }
+
+        store.close();
+    }
+
+}
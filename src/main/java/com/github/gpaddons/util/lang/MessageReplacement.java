@@ -16,4 +16,18 @@ public interface MessageReplacement
      */
     @NotNull String replace(@NotNull String value);
 
+    /**
+     * Append the value of a variable for use with a {@link MessageTemplate}.
+     *
+     * <p>Implementations should not append anything if the variable is not supported.
+     *
+     * @param variable the name of the variable without the leading {@code $}
+     * @param builder the builder to append the value to
+     * @return true if the variable is supported and its value was appended
+     */
+    default boolean appendValue(@NotNull String variable, @NotNull StringBuilder builder)
+    {
+        return false;
+    }
+
 }
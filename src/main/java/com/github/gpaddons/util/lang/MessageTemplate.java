@@ -0,0 +1,125 @@
+package com.github.gpaddons.util.lang;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message split into literal text and variables ahead of time.
+ *
+ * <p>Variables are a {@code $} followed by letters and digits. When rendering, each variable is
+ * resolved by the first {@link MessageReplacement} that provides it. If no replacement provides the
+ * full variable, the longest provided prefix is used and the remainder is kept as text, matching the
+ * behavior of plain text replacement. Variables that cannot be resolved are kept as-is.
+ */
+public final class MessageTemplate
+{
+
+    private final @NotNull String @NotNull [] literals;
+    private final @NotNull String @NotNull [] variables;
+
+    private MessageTemplate(@NotNull String @NotNull [] literals, @NotNull String @NotNull [] variables)
+    {
+        this.literals = literals;
+        this.variables = variables;
+    }
+
+    /**
+     * Compile a message into a template.
+     *
+     * @param message the message
+     * @return the compiled template
+     */
+    public static @NotNull MessageTemplate compile(@NotNull String message)
+    {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+
+        int literalStart = 0;
+        int index = message.indexOf('$');
+        while (index >= 0)
+        {
+            int end = index + 1;
+            while (end < message.length() && Character.isLetterOrDigit(message.charAt(end))) ++end;
+
+            // Lone dollar signs are text.
+            if (end > index + 1)
+            {
+                literals.add(message.substring(literalStart, index));
+                variables.add(message.substring(index + 1, end));
+                literalStart = end;
+            }
+
+            index = message.indexOf('$', end);
+        }
+
+        literals.add(message.substring(literalStart));
+
+        return new MessageTemplate(literals.toArray(new String[0]), variables.toArray(new String[0]));
+    }
+
+    /**
+     * Render the template into a new {@link String}.
+     *
+     * @param replacements the variable replacement providers
+     * @return the rendered message
+     */
+    public @NotNull String render(MessageReplacement @NotNull ... replacements)
+    {
+        StringBuilder builder = new StringBuilder();
+        render(builder, replacements);
+        return builder.toString();
+    }
+
+    /**
+     * Render the template into an existing {@link StringBuilder}.
+     *
+     * @param builder the builder to append to
+     * @param replacements the variable replacement providers
+     */
+    public void render(@NotNull StringBuilder builder, MessageReplacement @NotNull ... replacements)
+    {
+        builder.append(literals[0]);
+
+        for (int i = 0; i < variables.length; ++i)
+        {
+            appendVariable(builder, variables[i], replacements);
+            builder.append(literals[i + 1]);
+        }
+    }
+
+    private static void appendVariable(
+            @NotNull StringBuilder builder,
+            @NotNull String variable,
+            MessageReplacement @NotNull ... replacements)
+    {
+        if (append(builder, variable, replacements)) return;
+
+        // Fall back to the longest known prefix.
+        for (int length = variable.length() - 1; length > 0; --length)
+        {
+            if (append(builder, variable.substring(0, length), replacements))
+            {
+                builder.append(variable, length, variable.length());
+                return;
+            }
+        }
+
+        builder.append('$').append(variable);
+    }
+
+    private static boolean append(
+            @NotNull StringBuilder builder,
+            @NotNull String variable,
+            MessageReplacement @NotNull ... replacements)
+    {
+        for (MessageReplacement replacement : replacements)
+        {
+            if (replacement.appendValue(variable, builder)) return true;
+        }
+
+        return false;
+    }
+
+}
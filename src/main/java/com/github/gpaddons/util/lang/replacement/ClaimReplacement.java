@@ -43,4 +43,24 @@ public class ClaimReplacement implements MessageReplacement
         return value;
     }
 
+    @Override
+    public boolean appendValue(@NotNull String variable, @NotNull StringBuilder builder)
+    {
+        switch (variable)
+        {
+            case "claimId" -> builder.append(claim.getID());
+            case "area" -> builder.append(claim.getArea());
+            case "width" -> builder.append(claim.getWidth());
+            case "depth" -> builder.append(claim.getHeight());
+            default ->
+            {
+                return ownerReplacement.appendValue(variable, builder)
+                        || maxReplacement.appendValue(variable, builder)
+                        || minReplacement.appendValue(variable, builder);
+            }
+        }
+
+        return true;
+    }
+
 }
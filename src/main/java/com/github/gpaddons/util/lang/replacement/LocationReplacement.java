@@ -20,6 +20,9 @@ public class LocationReplacement implements MessageReplacement
 {
     private final @NotNull String suffix;
     private final @NotNull Location location;
+    private final @NotNull String variableX;
+    private final @NotNull String variableY;
+    private final @NotNull String variableZ;
 
     public LocationReplacement(@NotNull Location location)
     {
@@ -30,22 +33,15 @@ public class LocationReplacement implements MessageReplacement
     {
         this.suffix = suffix;
         this.location = location;
+        this.variableX = "locX" + suffix;
+        this.variableY = "locY" + suffix;
+        this.variableZ = "locZ" + suffix;
     }
 
     @Override
     public @NotNull String replace(@NotNull String value)
     {
-        String worldName;
-        if (location.isWorldLoaded())
-        {
-            worldName = Objects.requireNonNull(location.getWorld()).getName();
-        }
-        else
-        {
-            worldName = Lang.get(CommonMessage.UNKNOWN_WORLD);
-        }
-
-        value = value.replace("$world", worldName);
+        value = value.replace("$world", getWorldName());
         value = value.replace("$locX" + suffix, String.valueOf(location.getBlockX()));
         value = value.replace("$locY" + suffix, String.valueOf(location.getBlockY()));
         value = value.replace("$locZ" + suffix, String.valueOf(location.getBlockZ()));
@@ -53,4 +49,26 @@ public class LocationReplacement implements MessageReplacement
         return value;
     }
 
+    @Override
+    public boolean appendValue(@NotNull String variable, @NotNull StringBuilder builder)
+    {
+        if (variable.equals("world")) builder.append(getWorldName());
+        else if (variable.equals(variableX)) builder.append(location.getBlockX());
+        else if (variable.equals(variableY)) builder.append(location.getBlockY());
+        else if (variable.equals(variableZ)) builder.append(location.getBlockZ());
+        else return false;
+
+        return true;
+    }
+
+    private @NotNull String getWorldName()
+    {
+        if (location.isWorldLoaded())
+        {
+            return Objects.requireNonNull(location.getWorld()).getName();
+        }
+
+        return Lang.get(CommonMessage.UNKNOWN_WORLD);
+    }
+
 }
@@ -23,6 +23,8 @@ import java.util.UUID;
 public class OwnerReplacement implements MessageReplacement
 {
 
+    private final @NotNull String variableId;
+    private final @NotNull String variableName;
     private final @NotNull String replaceId;
     private final @NotNull String replaceName;
     private final String uuidVal;
@@ -52,8 +54,10 @@ public class OwnerReplacement implements MessageReplacement
     {
         if (prefix.isEmpty()) throw new IllegalArgumentException("Prefix may not be empty.");
 
-        this.replaceId = '$' + prefix + "Id";
-        this.replaceName = '$' + prefix + "Name";
+        this.variableId = prefix + "Id";
+        this.variableName = prefix + "Name";
+        this.replaceId = '$' + variableId;
+        this.replaceName = '$' + variableName;
 
         this.uuidVal = Objects.requireNonNullElseGet(uuid, () -> new UUID(0, 0)).toString();
 
@@ -75,4 +79,14 @@ public class OwnerReplacement implements MessageReplacement
         return value;
     }
 
+    @Override
+    public boolean appendValue(@NotNull String variable, @NotNull StringBuilder builder)
+    {
+        if (variable.equals(variableId)) builder.append(uuidVal);
+        else if (variable.equals(variableName)) builder.append(nameVal);
+        else return false;
+
+        return true;
+    }
+
 }